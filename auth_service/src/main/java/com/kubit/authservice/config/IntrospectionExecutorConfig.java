@@ -0,0 +1,31 @@
+package com.kubit.authservice.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class IntrospectionExecutorConfig {
+
+    /**
+     * Pool acotado para validar lotes de tokens. La verificación es CPU pura, así que se dimensiona
+     * a los núcleos; si la cola se llena, el hilo que llama hace el trabajo (backpressure natural).
+     */
+    @Bean(name = "introspectionExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor introspectionExecutor(
+            @Value("${auth.introspect.threads:0}") int threads,
+            @Value("${auth.introspect.queueCapacity:256}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("introspect-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
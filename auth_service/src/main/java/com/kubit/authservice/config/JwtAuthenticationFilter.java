@@ -1,6 +1,5 @@
 package com.kubit.authservice.config;
-import com.kubit.authservice.util.JwtUtil;
-import io.jsonwebtoken.Claims;
+import com.kubit.authservice.util.VerifiedTokenCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -14,27 +13,27 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain)
             throws ServletException, IOException {
         String token = extractJwtFromCookies(request);
-        if (StringUtils.hasText(token) && jwtUtil.validateToken(token)) {
-            Claims claims = jwtUtil.extractAllClaims(token);
-            String userId = claims.getSubject();
-            List<String> roles = claims.get("roles", List.class);
-            var auth = new UsernamePasswordAuthenticationToken(
-                    userId,
-                    null,
-                    roles.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList())
-            );
-            SecurityContextHolder.getContext().setAuthentication(auth);
+        if (StringUtils.hasText(token)) {
+            // Una sola verificación (firma + expiración + claims) por request; si el mismo
+            // token ya se verificó, se reutiliza el resultado de la caché
+            verifiedTokenCache.verify(token).ifPresent(verified -> {
+                var auth = new UsernamePasswordAuthenticationToken(
+                        verified.subject(),
+                        null,
+                        verified.roles().stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList())
+                );
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            });
         }
         filterChain.doFilter(request, response);
     }
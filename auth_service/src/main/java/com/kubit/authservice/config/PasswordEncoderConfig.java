@@ -1,14 +1,52 @@
 package com.kubit.authservice.config;
 
+import java.time.Duration;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.kubit.authservice.util.BCryptCostCalibrator;
+import com.kubit.authservice.util.CostAwareBCryptPasswordEncoder;
+import com.kubit.authservice.util.OffloadingPasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
 @Configuration
 public class PasswordEncoderConfig {
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoderConfig.class);
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${auth.password.threads:0}") int threads,
+            @Value("${auth.password.queueCapacity:64}") int queueCapacity,
+            @Value("${auth.password.timeoutMs:5000}") long timeoutMs,
+            @Value("${auth.password.bcrypt.cost:0}") int cost,
+            @Value("${auth.password.bcrypt.targetMs:50}") long targetMs,
+            @Value("${auth.password.bcrypt.minCost:10}") int minCost,
+            @Value("${auth.password.bcrypt.maxCost:14}") int maxCost,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        // Costo fijo si se configura; si no, se calibra contra el objetivo de latencia en este CPU
+        int strength = cost > 0 ? cost : BCryptCostCalibrator.calibrate(Duration.ofMillis(targetMs), minCost, maxCost);
+        log.info("bcrypt cost={} ({})", strength, cost > 0 ? "configurado" : "calibrado a " + targetMs + " ms");
+
+        // Los hashes nuevos se guardan como {bcrypt}$2a$NN$...; los heredados sin prefijo se siguen aceptando
+        // y se reescriben en el siguiente login exitoso. Solo un costo fijado (igual en toda la flota) baja hashes
+        // más caros; con el calibrado cada nodo puede elegir otro y se reescribirían en cada login
+        CostAwareBCryptPasswordEncoder bcrypt = new CostAwareBCryptPasswordEncoder(strength, cost > 0);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        // bcrypt corre en su propio pool (núcleos disponibles por default), fuera de los hilos de Tomcat
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new OffloadingPasswordEncoder(delegating, poolSize, queueCapacity, timeoutMs,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
     }
 }
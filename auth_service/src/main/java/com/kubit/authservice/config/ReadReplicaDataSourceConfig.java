@@ -0,0 +1,118 @@
+package com.kubit.authservice.config;
+
+import java.io.IOException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Solo con {@code auth.datasource.replica.url} definido: pool del primario ({@code spring.datasource.*}, con
+ * {@code spring.datasource.hikari.*}) y pool de la réplica ({@code auth.datasource.replica.hikari.*}), detrás de
+ * {@link ReplicaRoutingDataSource}. Sin réplica se usa el datasource de siempre.
+ * <p>
+ * Las lecturas de los repositorios (readOnly por default en Spring Data) van a la réplica; las escrituras y los
+ * métodos de servicio {@code @Transactional} de lectura-escritura, al primario.
+ */
+@Configuration
+@Conditional(ReadReplicaDataSourceConfig.ReplicaConfigured.class)
+public class ReadReplicaDataSourceConfig {
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaDataSourceConfig.class);
+
+    /**
+     * Lee la URL por {@code Environment}: una URL con comillas (p. ej. {@code INIT=RUNSCRIPT FROM '...'}) rompería
+     * una expresión SpEL.
+     */
+    static class ReplicaConfigured implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return StringUtils.hasText(context.getEnvironment().getProperty("auth.datasource.replica.url"));
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    @ConfigurationProperties("auth.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${auth.datasource.replica.url}") String replicaUrl,
+            @Value("${auth.datasource.replica.username:}") String replicaUsername,
+            @Value("${auth.datasource.replica.password:}") String replicaPassword) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(StringUtils.hasText(replicaUsername) ? replicaUsername : properties.determineUsername())
+                .password(StringUtils.hasText(replicaUsername) ? replicaPassword : properties.determinePassword())
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    // Los pools se cierran como beans propios
+    @Bean(destroyMethod = "")
+    public ReplicaRoutingDataSource routingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${auth.datasource.replica.url}") String replicaUrl,
+            @Value("${auth.datasource.replica.maxLagMs:1000}") long maxLagMs) {
+        log.info("Lecturas readOnly a la réplica {} (guarda de lag {} ms)", replicaUrl, maxLagMs);
+        return new ReplicaRoutingDataSource(primary, replica, maxLagMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * La guarda de lag vale para el request que escribió: se limpia al terminar para que el hilo del pool de
+     * Tomcat no la arrastre al siguiente request.
+     */
+    @Bean
+    public OncePerRequestFilter replicaWriteMarkFilter(ReplicaRoutingDataSource routingDataSource) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                    FilterChain filterChain) throws ServletException, IOException {
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    routingDataSource.clearWriteMark();
+                }
+            }
+        };
+    }
+}
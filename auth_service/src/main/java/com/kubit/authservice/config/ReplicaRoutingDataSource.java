@@ -0,0 +1,73 @@
+package com.kubit.authservice.config;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envía las transacciones {@code readOnly} a la réplica y todo lo demás (escrituras, sin transacción) al primario.
+ * <p>
+ * Guarda de lag: cada transacción de escritura marca el hilo; durante {@code maxLagMs} las lecturas de ese hilo
+ * (el mismo request) siguen yendo al primario para ver lo que se acaba de escribir. La marca es del hilo, no del
+ * request: {@link #clearWriteMark()} la borra al terminar cada request (filtro de {@link ReadReplicaDataSourceConfig}).
+ * Fuera de un request (jobs programados) es best-effort: a lo sumo una lectura de más al primario.
+ * <p>
+ * Debe usarse detrás de un {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: la
+ * conexión se pide en la primera sentencia, cuando el flag readOnly de la transacción ya está fijado.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+    private final long maxLagNanos;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagMs) {
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLagMs));
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        long now = System.nanoTime();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !wroteRecently(now)) {
+            return Target.REPLICA;
+        }
+        // Solo marcan las transacciones de escritura; fuera de transacción (p. ej. el proxy leyendo los defaults
+        // de la conexión) se usa el primario sin marcar
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            lastWriteNanos.set(now);
+        }
+        return Target.PRIMARY;
+    }
+
+    /**
+     * Olvida la última escritura del hilo actual.
+     */
+    public void clearWriteMark() {
+        lastWriteNanos.remove();
+    }
+
+    private boolean wroteRecently(long now) {
+        Long lastWrite = lastWriteNanos.get();
+        return lastWrite != null && now - lastWrite < maxLagNanos;
+    }
+
+    /**
+     * Cierra los pools de primario y réplica.
+     */
+    public void close() throws Exception {
+        for (DataSource target : getResolvedDataSources().values()) {
+            if (target instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.kubit.authservice.config;
 
-import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.VerifiedTokenCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -17,10 +20,11 @@ import java.util.List;
 @Configuration
 @RequiredArgsConstructor
 public class SecurityConfig {
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+            @Value("${auth.introspect.authority:ROLE_INTROSPECT}") String introspectAuthority) throws Exception {
         http
                 .csrf(csrf -> csrf.disable()) // CSRF off para APIs JWT
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -29,14 +33,20 @@ public class SecurityConfig {
                         .requestMatchers("/auth/login",
                                 "/auth/register",
                                 "/auth/refresh",
+                                "/.well-known/jwks.json",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
                                 "/v3/api-docs/**",
                                 "/actuator/health",
-                                "/actuator/health/**")
+                                "/actuator/health/**",
+                                "/actuator/prometheus")
                         .permitAll()
+                        // Introspección solo para clientes de servicio (gateway): revela sub/roles y cuesta una firma por token
+                        .requestMatchers("/auth/introspect/batch").hasAuthority(introspectAuthority)
                         .anyRequest().authenticated())
-                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil), UsernamePasswordAuthenticationFilter.class);
+                // Sin sesión ni login form: un request anónimo a un endpoint protegido recibe 401, no 403
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(new JwtAuthenticationFilter(verifiedTokenCache), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 
@@ -47,6 +57,7 @@ public class SecurityConfig {
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
         config.setAllowCredentials(true); // Permite cookies (para JWT en cookie)
+        config.setExposedHeaders(List.of("Server-Timing")); // Desglose de latencia legible desde el frontend
         // Puedes ajustar el max age y los headers expuestos si lo necesitas
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
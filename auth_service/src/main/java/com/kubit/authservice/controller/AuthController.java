@@ -1,5 +1,7 @@
 package com.kubit.authservice.controller;
 
+import java.util.Set;
+
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -11,19 +13,22 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.IntrospectBatchRequest;
+import com.kubit.authservice.domain.entity.IntrospectBatchResponse;
 import com.kubit.authservice.domain.entity.LoginRequest;
 import com.kubit.authservice.domain.entity.RegisterRequest;
 import com.kubit.authservice.domain.entity.UserLoginResponse;
 import com.kubit.authservice.service.AuthService;
+import com.kubit.authservice.service.TokenIntrospectionService;
 import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.SecureRandomPool;
+import com.kubit.authservice.util.ServerTimingRecorder;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 
-import java.util.UUID;
-
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -40,7 +45,10 @@ import io.swagger.v3.oas.annotations.Parameter;
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthService authService;
+    private final TokenIntrospectionService tokenIntrospectionService;
     private final JwtUtil jwtUtil;
+    private final ServerTimingRecorder serverTimingRecorder;
+    private final SecureRandomPool secureRandomPool;
 
     @Operation(
         summary = "Registro de usuario nuevo",
@@ -51,9 +59,7 @@ public class AuthController {
     })
     @PostMapping("/register")
     public ResponseEntity<AuthUser> register(@RequestBody RegisterRequest request) {
-        AuthUser user = authService.register(request);
-        user.setPasswordHash(null);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(visibleUser(authService.register(request)));
     }
 
     @Operation(
@@ -71,7 +77,7 @@ public class AuthController {
         // Si el cliente no envió deviceId, el backend lo genera y lo pone en cookie
         // estándar
         if (deviceId == null || deviceId.isBlank()) {
-            deviceId = UUID.randomUUID().toString();
+            deviceId = secureRandomPool.randomUUID().toString();
             Cookie deviceCookie = new Cookie("deviceId", deviceId);
             deviceCookie.setHttpOnly(false); // Cliente JS debe acceder y enviar en siguientes requests
             deviceCookie.setSecure(true);
@@ -85,12 +91,17 @@ public class AuthController {
         // Pasa deviceId y ipAddress al LoginRequest
         request.setDeviceId(deviceId);
         request.setIpAddress(ipAddress);
-        UserLoginResponse loginResponse = authService.login(request);
-        // setea cookies access/refresh como antes
-        // ...
-        setAuthCookies(response, loginResponse.getAccessToken(), loginResponse.getRefreshToken());
-        loginResponse.getUser().setPasswordHash(null);
-        return ResponseEntity.ok(new UserLoginResponse(loginResponse.getUser(), null, null));
+        serverTimingRecorder.start();
+        try {
+            UserLoginResponse loginResponse = authService.login(request);
+            // setea cookies access/refresh como antes
+            // ...
+            setAuthCookies(response, loginResponse.getAccessToken(), loginResponse.getRefreshToken());
+            writeServerTiming(response);
+            return ResponseEntity.ok(new UserLoginResponse(visibleUser(loginResponse.getUser()), null, null));
+        } finally {
+            serverTimingRecorder.clear();
+        }
     }
 
     @Operation(
@@ -107,15 +118,21 @@ public class AuthController {
             HttpServletRequest servletRequest,
             HttpServletResponse response) {
         String ipAddress = extractIp(servletRequest);
-        UserLoginResponse loginResponse = authService.refreshToken(refreshToken, deviceId, ipAddress);
-        setAuthCookies(response, loginResponse.getAccessToken(), loginResponse.getRefreshToken());
-        loginResponse.getUser().setPasswordHash(null);
-        return ResponseEntity.ok(new UserLoginResponse(loginResponse.getUser(), null, null));
+        serverTimingRecorder.start();
+        try {
+            UserLoginResponse loginResponse = authService.refreshToken(refreshToken, deviceId, ipAddress);
+            setAuthCookies(response, loginResponse.getAccessToken(), loginResponse.getRefreshToken());
+            writeServerTiming(response);
+            // En la ventana de gracia la misma respuesta llega a varios requests: no se modifica
+            return ResponseEntity.ok(new UserLoginResponse(visibleUser(loginResponse.getUser()), null, null));
+        } finally {
+            serverTimingRecorder.clear();
+        }
     }
 
     @Operation(
         summary = "Logout de dispositivo actual",
-        description = "Revoca el refresh token de este dispositivo y elimina cookies de sesión."
+        description = "Revoca el refresh token y el access token de este dispositivo y elimina cookies de sesión."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Logout exitoso"),
@@ -125,17 +142,18 @@ public class AuthController {
     public ResponseEntity<Void> logout(
             @CookieValue("refreshToken") String refreshToken,
             @CookieValue("deviceId") String deviceId,
+            @CookieValue(value = "accessToken", required = false) String accessToken,
             HttpServletRequest servletRequest,
             HttpServletResponse response) {
         String ipAddress = extractIp(servletRequest);
-        authService.logout(refreshToken, deviceId, ipAddress);
+        authService.logout(refreshToken, accessToken, deviceId, ipAddress);
         clearAuthCookies(response);
         return ResponseEntity.ok().build();
     }
 
     @Operation(
         summary = "Logout en todos los dispositivos",
-        description = "Revoca todos los refresh tokens activos del usuario (requiere el userId asociado autenticado) y elimina cookies."
+        description = "Revoca todos los refresh tokens y access tokens activos del usuario (requiere el userId asociado autenticado) y elimina cookies."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Logout global exitoso"),
@@ -151,6 +169,34 @@ public class AuthController {
         return ResponseEntity.ok().build();
     }
 
+    @Operation(
+        summary = "Introspección de tokens en lote",
+        description = "Valida varios access tokens en una sola llamada (pensado para gateways; requiere un access token con auth.introspect.authority). Devuelve active, sub, roles y exp por token, en el mismo orden.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Resultados por token"),
+        @ApiResponse(responseCode = "400", description = "Lote vacío o mayor al máximo permitido"),
+        @ApiResponse(responseCode = "401", description = "Sin access token de cliente"),
+        @ApiResponse(responseCode = "403", description = "El access token no trae auth.introspect.authority")
+    })
+    @PostMapping("/introspect/batch")
+    public ResponseEntity<IntrospectBatchResponse> introspectBatch(@RequestBody IntrospectBatchRequest request) {
+        return ResponseEntity.ok(new IntrospectBatchResponse(tokenIntrospectionService.introspect(request.getTokens())));
+    }
+
+    /**
+     * Copia del usuario sin passwordHash para la respuesta; la entidad recibida puede estar compartida.
+     */
+    private static AuthUser visibleUser(AuthUser user) {
+        return AuthUser.builder()
+            .id(user.getId())
+            .email(user.getEmail())
+            .status(user.getStatus())
+            .roles(user.getRoles() != null ? Set.copyOf(user.getRoles()) : null)
+            .createdAt(user.getCreatedAt())
+            .updatedAt(user.getUpdatedAt())
+            .build();
+    }
+
     private void setAuthCookies(HttpServletResponse response, String accessToken, String refreshToken) {
         // Configurar la cookie del token de acceso
         Cookie accessCookie = new Cookie("accessToken", accessToken);
@@ -181,6 +227,14 @@ public class AuthController {
         response.addCookie(refreshCookie);
     }
 
+    // Fases medidas en AuthService durante este request (solo con auth.serverTiming.enabled)
+    private void writeServerTiming(HttpServletResponse response) {
+        String timing = serverTimingRecorder.header();
+        if (timing != null) {
+            response.setHeader("Server-Timing", timing);
+        }
+    }
+
     private String extractIp(HttpServletRequest request) {
         String ip = request.getHeader("X-Forwarded-For");
         if (ip == null)
@@ -1,11 +1,15 @@
 package com.kubit.authservice.controller;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.Map;
 
+import com.kubit.authservice.util.PasswordHashingRejectedException;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -14,5 +18,13 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<?> handlePasswordHashingRejected(PasswordHashingRejectedException ex) {
+        // Backpressure del pool de bcrypt: el cliente reintenta en un momento
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     // Puedes añadir otros handlers personalizados según necesidades
 }
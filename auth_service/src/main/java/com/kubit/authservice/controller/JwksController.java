@@ -0,0 +1,63 @@
+package com.kubit.authservice.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.kubit.authservice.util.JwtKeyRing;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "JWKS", description = "Llaves públicas para verificar access tokens sin llamar a auth_service")
+@RestController
+public class JwksController {
+    private final JwtKeyRing keyRing;
+    private final Duration maxAge;
+
+    public JwksController(JwtKeyRing keyRing,
+            @Value("${jwt.keys.jwksMaxAgeSeconds:300}") long maxAgeSeconds) {
+        this.keyRing = keyRing;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+    }
+
+    @Operation(
+        summary = "JSON Web Key Set",
+        description = "Llaves RSA activas y en retiro (RFC 7517). Vacío cuando jwt.algorithm=HS256.")
+    @ApiResponse(responseCode = "200", description = "Key set")
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        List<Map<String, Object>> keys = keyRing.publicJwks();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .eTag(etag(keys))
+                .body(Map.of("keys", keys));
+    }
+
+    // Sobre kid y material (n, e): una llave reemplazada con el mismo kid cambia el ETag
+    private static String etag(List<Map<String, Object>> keys) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map<String, Object> key : keys) {
+                for (String field : List.of("kid", "n", "e")) {
+                    digest.update(String.valueOf(key.get(field)).getBytes(StandardCharsets.US_ASCII));
+                    digest.update((byte) 0);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
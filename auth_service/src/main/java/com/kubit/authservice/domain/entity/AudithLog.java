@@ -7,25 +7,36 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "auth_audit_log")
+@Table(name = "auth_audit_log",
+    indexes = {
+        @Index(name = "idx_audit_log_user_created", columnList = "auth_user_id, created_at")
+    }
+)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class AudithLog {
 
+    // Ids por bloques (pooled) para que los lotes del writer de auditoría se agrupen en JDBC batch. Solo lo usa
+    // ese hilo (y el apagado, ya sin requests): en el camino del request el optimizador, que pide otra conexión con
+    // su lock tomado, podría agotar el pool; por eso AuditLogServiceImpl desvía a disco lo que llega al apagar
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "auth_audit_log_id")
+    @TableGenerator(name = "auth_audit_log_id", table = "id_sequence", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "auth_audit_log", allocationSize = 50)
     private Long id;
 
     @Column(name = "auth_user_id")
@@ -40,8 +51,11 @@ public class AudithLog {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // Respeta la hora del evento que trae el write-behind (y las reinserciones del spill); define su partición mensual
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
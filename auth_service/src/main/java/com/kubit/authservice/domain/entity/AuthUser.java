@@ -3,6 +3,9 @@ package com.kubit.authservice.domain.entity;
 import java.time.LocalDateTime;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -57,7 +60,8 @@ public class AuthUser {
     private AuthUserStatus status;
 
     @Schema(description = "Conjunto de roles para el usuario", example = "[ROLE_USER, ROLE_ADMIN]")
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     @JoinTable(
         name = "auth_user_role",
         joinColumns = @JoinColumn(name = "auth_user_id"),
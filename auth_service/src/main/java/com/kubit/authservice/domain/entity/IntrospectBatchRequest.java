@@ -0,0 +1,21 @@
+package com.kubit.authservice.domain.entity;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(name = "IntrospectBatchRequest", description = "Lote de access tokens a validar en una sola llamada (gateways).")
+public class IntrospectBatchRequest {
+    @Schema(description = "Access tokens (JWT) a revisar, hasta auth.introspect.maxBatchSize", example = "[\"eyJhbGciOiJIUzI1NiJ9...\"]")
+    @NotNull
+    private List<String> tokens;
+}
@@ -0,0 +1,18 @@
+package com.kubit.authservice.domain.entity;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(name = "IntrospectBatchResponse", description = "Resultados en el mismo orden que los tokens recibidos.")
+public class IntrospectBatchResponse {
+    private List<TokenIntrospection> results;
+}
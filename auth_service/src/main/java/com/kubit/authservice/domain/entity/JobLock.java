@@ -0,0 +1,40 @@
+package com.kubit.authservice.domain.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Candado de trabajos programados: con varias instancias desplegadas solo la que tenga el lease vigente
+ * ejecuta el trabajo.
+ */
+@Entity
+@Table(name = "job_lock")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JobLock {
+    /*
+     * 'name', 'varchar(64)', 'NO', 'PRI', NULL, ''
+     * 'locked_by', 'varchar(128)', 'NO', '', NULL, ''
+     * 'locked_until', 'timestamp', 'NO', '', NULL, ''
+     */
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "locked_by", nullable = false, length = 128)
+    private String lockedBy;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
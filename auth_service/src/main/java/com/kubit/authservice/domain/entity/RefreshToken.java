@@ -4,9 +4,11 @@ import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -17,7 +19,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "refresh_token")
+@Table(name = "refresh_token",
+    indexes = {
+        // Rango y min() de RefreshTokenPurgeJob (db/mysql/refresh_token_expires_at_idx.sql)
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_refresh_token_revoked_at", columnList = "revoked_at")
+    }
+)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -26,9 +34,12 @@ public class RefreshToken {
     /*
      * 'id', 'bigint', 'NO', 'PRI', NULL, 'auto_increment'
      * 'auth_user_id', 'bigint', 'NO', 'MUL', NULL, ''
-     * 'token', 'varchar(512)', 'NO', 'UNI', NULL, ''
-     * 'expires_at', 'timestamp', 'NO', '', NULL, ''
+     * 'token', 'varchar(512)', 'YES', 'UNI', NULL, ''
+     * 'selector', 'binary(12)', 'YES', 'UNI', NULL, ''
+     * 'verifier_hash', 'binary(32)', 'YES', '', NULL, ''
+     * 'expires_at', 'timestamp', 'NO', 'MUL', NULL, ''
      * 'revoked', 'tinyint(1)', 'YES', '', '0', ''
+     * 'revoked_at', 'timestamp', 'YES', 'MUL', NULL, ''
      * 'created_at', 'timestamp', 'YES', '', 'CURRENT_TIMESTAMP', 'DEFAULT_GENERATED'
      */
 
@@ -36,13 +47,20 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "auth_user_id")
     private AuthUser authUser;
 
-    @Column(unique = true, nullable = false, length = 512)
+    // Solo tokens del formato anterior, hasta que expiren; los nuevos usan selector + verifier_hash
+    @Column(unique = true, length = 512)
     private String token;
 
+    @Column(name = "selector", unique = true, columnDefinition = "binary(12)")
+    private byte[] selector;
+
+    @Column(name = "verifier_hash", columnDefinition = "binary(32)")
+    private byte[] verifierHash;
+
     @Column(name = "device_id", length = 128)
     private String deviceId;
 
@@ -55,11 +73,18 @@ public class RefreshToken {
     @Column(name = "revoked", nullable = false)
     private Boolean revoked;
 
+    // Desde cuándo está revocado: la purga cuenta la retención desde aquí, no desde created_at
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
+        if (token == null && (selector == null || verifierHash == null)) {
+            throw new IllegalStateException("Refresh token needs a selector and verifier hash");
+        }
         createdAt = LocalDateTime.now();
     }
 }
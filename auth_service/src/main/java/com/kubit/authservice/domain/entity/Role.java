@@ -1,7 +1,11 @@
 package com.kubit.authservice.domain.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -13,6 +17,8 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "role")
+@EntityListeners(RoleChangeListener.class)
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
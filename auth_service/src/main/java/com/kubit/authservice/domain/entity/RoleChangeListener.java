@@ -0,0 +1,26 @@
+package com.kubit.authservice.domain.entity;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreRemove;
+
+/**
+ * Versión de los roles en esta instancia: cualquier alta, cambio o baja de {@link Role} por JPA la incrementa
+ * para que el catálogo en memoria se recargue en la siguiente consulta.
+ */
+public class RoleChangeListener {
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    public static long version() {
+        return VERSION.get();
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PreRemove
+    void onChange(Role role) {
+        VERSION.incrementAndGet();
+    }
+}
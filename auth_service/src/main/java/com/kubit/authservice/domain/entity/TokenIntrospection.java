@@ -0,0 +1,38 @@
+package com.kubit.authservice.domain.entity;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "TokenIntrospection", description = "Resultado por token, con los nombres de RFC 7662. Si active=false no se devuelve nada más.")
+public class TokenIntrospection {
+    @Schema(description = "true si la firma es válida y el token no ha expirado", example = "true")
+    private boolean active;
+
+    @Schema(description = "Id del usuario (subject)", example = "42")
+    private String sub;
+
+    @Schema(description = "Roles del usuario", example = "[\"ROLE_USER\"]")
+    private List<String> roles;
+
+    @Schema(description = "Expiración en segundos epoch", example = "1760000000")
+    private Long exp;
+
+    /**
+     * Instancia nueva en cada llamada: la clase es mutable y no se puede compartir entre resultados.
+     */
+    public static TokenIntrospection inactive() {
+        return new TokenIntrospection(false, null, null, null);
+    }
+}
@@ -1,5 +1,6 @@
 package com.kubit.authservice.domain.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
@@ -10,7 +11,11 @@ import java.util.Optional;
 
 @Service
 public interface AuthUserRepository extends JpaRepository<AuthUser, Long> {
-    
+
+    /**
+     * Usuario con sus roles en un solo SELECT (join), que es lo que necesita el login para emitir el JWT.
+     */
+    @EntityGraph(attributePaths = "roles")
     Optional<AuthUser> findByEmail(String email);
 
     boolean existsByEmail(String email);
@@ -0,0 +1,32 @@
+package com.kubit.authservice.domain.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.kubit.authservice.domain.entity.JobLock;
+
+@Service
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    /**
+     * Toma el candado si está libre (lease vencido) o si ya es de {@code owner}.
+     * @return 1 si se obtuvo, 0 si otra instancia lo tiene o el candado aún no existe
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update JobLock l set l.lockedBy = :owner, l.lockedUntil = :until"
+            + " where l.name = :name and (l.lockedUntil <= :now or l.lockedBy = :owner)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update JobLock l set l.lockedUntil = :now where l.name = :name and l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -1,18 +1,109 @@
 package com.kubit.authservice.domain.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.kubit.authservice.domain.entity.RefreshToken;
 
 @Service
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    /**
+     * Solo el refresh token; {@code authUser} queda como proxy (alcanza con su id, p. ej. en logout).
+     * El llamador valida el verificador contra {@code verifierHash}.
+     */
+    Optional<RefreshToken> findBySelector(byte[] selector);
+
+    /**
+     * Refresh token con su usuario y los roles en un solo SELECT, para rotar y emitir el JWT nuevo.
+     */
+    @EntityGraph(attributePaths = { "authUser", "authUser.roles" })
+    Optional<RefreshToken> findWithUserAndRolesBySelector(byte[] selector);
+
+    /**
+     * Como {@link #findBySelector(byte[])}, para tokens del formato anterior guardados en {@code token}.
+     */
     Optional<RefreshToken> findByToken(String token);
 
+    @EntityGraph(attributePaths = { "authUser", "authUser.roles" })
+    Optional<RefreshToken> findWithUserAndRolesByToken(String token);
+
     void deleteByAuthUserId(Long authUserId);
 
     List<RefreshToken> findAllByAuthUserIdAndDeviceId(Long userId, String deviceId);
+
+    /**
+     * Revoca en un solo UPDATE los refresh tokens vigentes del usuario en un dispositivo
+     * ({@code deviceId} null revoca los emitidos sin dispositivo).
+     * @return cantidad de tokens revocados
+     */
+    default int revokeAllByAuthUserIdAndDeviceId(Long userId, String deviceId) {
+        return revokeAllByAuthUserIdAndDeviceId(userId, deviceId, LocalDateTime.now());
+    }
+
+    // revokedAt se pasa desde la JVM, igual que createdAt y expiresAt (la zona de la base puede ser otra)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RefreshToken t set t.revoked = true, t.revokedAt = :revokedAt where t.authUser.id = :userId"
+            + " and (t.deviceId = :deviceId or (:deviceId is null and t.deviceId is null))"
+            + " and t.revoked = false")
+    int revokeAllByAuthUserIdAndDeviceId(@Param("userId") Long userId, @Param("deviceId") String deviceId,
+            @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * Revoca el token solo si sigue vigente. Con rotaciones concurrentes del mismo token, una sola afecta la fila
+     * (la otra espera el lock de fila y ve {@code revoked = true}), sin SELECT ... FOR UPDATE. No limpia el
+     * contexto de persistencia: la entidad ya cargada conserva {@code revoked = false}.
+     * @return 1 si esta llamada revocó el token, 0 si ya estaba revocado
+     */
+    default int revokeIfActive(Long id) {
+        return revokeIfActive(id, LocalDateTime.now());
+    }
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update RefreshToken t set t.revoked = true, t.revokedAt = :revokedAt where t.id = :id and t.revoked = false")
+    int revokeIfActive(@Param("id") Long id, @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * Revoca en un solo UPDATE todos los refresh tokens vigentes del usuario.
+     * @return cantidad de tokens revocados
+     */
+    default int revokeAllByAuthUserId(Long userId) {
+        return revokeAllByAuthUserId(userId, LocalDateTime.now());
+    }
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RefreshToken t set t.revoked = true, t.revokedAt = :revokedAt"
+            + " where t.authUser.id = :userId and t.revoked = false")
+    int revokeAllByAuthUserId(@Param("userId") Long userId, @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * Ids purgables (expirados, o revocados antes de {@code revokedBefore}) posteriores a {@code afterId}, en orden
+     * de PK para purgar por trozos. Las filas revocadas antes de existir {@code revoked_at} usan {@code created_at}.
+     */
+    @Query("select t.id from RefreshToken t where t.id > :afterId"
+            + " and (t.expiresAt < :now or (t.revoked = true and (t.revokedAt < :revokedBefore"
+            + " or (t.revokedAt is null and t.createdAt < :revokedBefore))))"
+            + " order by t.id")
+    List<Long> findPurgeableIds(@Param("afterId") Long afterId, @Param("now") LocalDateTime now,
+            @Param("revokedBefore") LocalDateTime revokedBefore, Pageable page);
+
+    // Ambos min() se resuelven con el primer registro de idx_refresh_token_expires_at / idx_refresh_token_revoked_at
+    @Query("select min(t.expiresAt) from RefreshToken t where t.expiresAt < :now")
+    Optional<LocalDateTime> findOldestExpiredAt(@Param("now") LocalDateTime now);
+
+    // revokedAt solo se llena al revocar; las filas revocadas sin revokedAt (anteriores a la columna) no cuentan
+    @Query("select min(t.revokedAt) from RefreshToken t where t.revokedAt < :revokedBefore")
+    Optional<LocalDateTime> findOldestRevokedAt(@Param("revokedBefore") LocalDateTime revokedBefore);
 }
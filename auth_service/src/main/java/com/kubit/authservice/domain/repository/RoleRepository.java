@@ -9,6 +9,7 @@ import com.kubit.authservice.domain.entity.Role;
 
 @Service
 public interface RoleRepository extends JpaRepository<Role, Long> {
-    
+
+    // Sin caché: es el fallback de RoleCatalog para ver roles creados en otra instancia
     Optional<Role> findByName(String name);
 }
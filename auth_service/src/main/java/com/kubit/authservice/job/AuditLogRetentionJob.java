@@ -0,0 +1,266 @@
+package com.kubit.authservice.job;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Retención de {@code auth_audit_log}: conserva {@code auth.audit.retention.months} meses completos y archiva lo
+ * anterior en {@code auth.audit.retention.archiveDir} como {@code auth_audit_log-<partición>.ndjson.gz}
+ * (gzip de NDJSON, un objeto por fila con los nombres de columna de la tabla, ordenado por id).
+ * <ul>
+ * <li>MySQL particionado ({@code db/mysql/auth_audit_log_partitioning.sql}): crea por adelantado las particiones
+ * mensuales y, para las que quedan fuera de la ventana, archiva la partición y la elimina con {@code DROP PARTITION},
+ * que es instantáneo y no genera un DELETE fila por fila.</li>
+ * <li>Sin particiones (H2 en tests, MySQL aún sin migrar): archiva mes por mes y, con el archivo ya movido a su
+ * nombre final, borra el mes hasta el último id archivado; una fila del mes que llega durante el archivado (id
+ * mayor) queda para la siguiente corrida.</li>
+ * </ul>
+ * Las filas se leen y se borran en trozos de {@code auth.audit.retention.chunkSize} ordenados por id
+ * ({@code id > ? ... limit ?}), así que la memoria no depende del tamaño del mes (Connector/J no hace streaming con
+ * un simple fetch size) y cada DELETE toca a lo sumo un trozo. Solo se borra después de que el archivo quedó escrito
+ * completo. Corre en una sola instancia ({@link JobLockService}).
+ */
+@Component
+public class AuditLogRetentionJob {
+    private static final Logger log = LoggerFactory.getLogger(AuditLogRetentionJob.class);
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter BOUNDARY = DateTimeFormatter.ofPattern("yyyy-MM-dd' 00:00:00'");
+    private static final String COLUMNS = "id, auth_user_id, event_type, ip_address, created_at";
+
+    static final String LOCK_NAME = "audit-log-retention";
+
+    private record Partition(String name, String description) { }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLockService jobLockService;
+    private final int retentionMonths;
+    private final int partitionsAhead;
+    private final int chunkSize;
+    private final Path archiveDir;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    public AuditLogRetentionJob(
+        JdbcTemplate jdbcTemplate,
+        JobLockService jobLockService,
+        @Value("${auth.audit.retention.months:12}") int retentionMonths,
+        @Value("${auth.audit.retention.partitionsAhead:3}") int partitionsAhead,
+        @Value("${auth.audit.retention.archiveDir:audit-archive}") String archiveDir,
+        @Value("${auth.audit.retention.chunkSize:1000}") int chunkSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLockService = jobLockService;
+        this.retentionMonths = retentionMonths;
+        this.partitionsAhead = partitionsAhead;
+        this.chunkSize = chunkSize;
+        this.archiveDir = Path.of(archiveDir);
+    }
+
+    @Scheduled(cron = "${auth.audit.retention.cron:0 30 3 * * *}")
+    public void run() {
+        jobLockService.runLocked(LOCK_NAME, Duration.ofHours(1), () -> archiveExpired(LocalDate.now()));
+    }
+
+    /**
+     * @return filas archivadas y eliminadas
+     */
+    public long archiveExpired(LocalDate today) {
+        LocalDate cutoff = today.withDayOfMonth(1).minusMonths(retentionMonths);
+        List<Partition> partitions = isMySql() ? listPartitions() : List.of();
+        if (partitions.isEmpty()) {
+            return archiveByRange(cutoff);
+        }
+        ensureFuturePartitions(partitions, today.withDayOfMonth(1));
+        return archivePartitions(partitions, cutoff);
+    }
+
+    private long archivePartitions(List<Partition> partitions, LocalDate cutoff) {
+        long cutoffEpoch = jdbcTemplate.queryForObject("select unix_timestamp(?)", Long.class, cutoff.format(BOUNDARY));
+        long total = 0;
+        for (Partition partition : partitions) {
+            // pmax (MAXVALUE) nunca se archiva; el resto cuando su frontera superior ya quedó fuera de la ventana
+            if (!partition.description().chars().allMatch(Character::isDigit)
+                    || Long.parseLong(partition.description()) > cutoffEpoch) {
+                continue;
+            }
+            // El último trozo (vacío) se lee justo antes del DROP
+            long rows = archive(partition.name(), "auth_audit_log partition (" + partition.name() + ")", "",
+                id -> { });
+            jdbcTemplate.execute("alter table auth_audit_log drop partition " + partition.name());
+            log.info("Partición {} de auth_audit_log archivada ({} filas) y eliminada", partition.name(), rows);
+            total += rows;
+        }
+        return total;
+    }
+
+    private void ensureFuturePartitions(List<Partition> partitions, LocalDate currentMonth) {
+        if (partitions.stream().noneMatch(p -> p.name().equals("pmax"))) {
+            log.warn("auth_audit_log no tiene partición pmax; no se crean particiones nuevas");
+            return;
+        }
+        for (int i = 0; i <= partitionsAhead; i++) {
+            LocalDate month = currentMonth.plusMonths(i);
+            String name = month.format(PARTITION_NAME);
+            if (partitions.stream().anyMatch(p -> p.name().equals(name))) {
+                continue;
+            }
+            jdbcTemplate.execute("alter table auth_audit_log reorganize partition pmax into ("
+                + "partition " + name + " values less than (unix_timestamp('" + month.plusMonths(1).format(BOUNDARY) + "')), "
+                + "partition pmax values less than maxvalue)");
+            log.info("Partición {} de auth_audit_log creada", name);
+        }
+    }
+
+    private long archiveByRange(LocalDate cutoff) {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+            "select min(created_at) from auth_audit_log where created_at < ?", Timestamp.class,
+            Timestamp.valueOf(cutoff.atStartOfDay()));
+        if (oldest == null) {
+            return 0;
+        }
+        long total = 0;
+        for (LocalDate month = oldest.toLocalDateTime().toLocalDate().withDayOfMonth(1); month.isBefore(cutoff);
+                month = month.plusMonths(1)) {
+            Timestamp from = Timestamp.valueOf(month.atStartOfDay());
+            Timestamp to = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+            long[] lastArchivedId = { Long.MIN_VALUE };
+            long rows = archive(month.format(PARTITION_NAME), "auth_audit_log",
+                "created_at >= ? and created_at < ?", id -> lastArchivedId[0] = id, from, to);
+            if (rows > 0) {
+                deleteArchived(lastArchivedId[0], from, to);
+                log.info("Mes {} de auth_audit_log archivado ({} filas) y eliminado", month.format(PARTITION_NAME), rows);
+            }
+            total += rows;
+        }
+        return total;
+    }
+
+    /**
+     * Escribe las filas de {@code source} que cumplen {@code condition} en un .ndjson.gz, en trozos por id; el
+     * archivo aparece completo o no aparece. Cada id escrito se pasa a {@code archivedIds}.
+     */
+    private long archive(String name, String source, String condition, LongConsumer archivedIds, Object... args) {
+        String sql = "select " + COLUMNS + " from " + source + " where "
+            + (condition.isEmpty() ? "" : condition + " and ") + "id > ? order by id limit ?";
+        Object[] chunkArgs = Arrays.copyOf(args, args.length + 2);
+        chunkArgs[args.length + 1] = chunkSize;
+        try {
+            Files.createDirectories(archiveDir);
+            Path target = uniqueTarget(name);
+            Path tmp = archiveDir.resolve(target.getFileName() + ".tmp");
+            long[] rows = { 0 };
+            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+                long[] lastId = { Long.MIN_VALUE };
+                int[] chunkRows = new int[1];
+                do {
+                    chunkArgs[args.length] = lastId[0];
+                    chunkRows[0] = 0;
+                    jdbcTemplate.query(sql, rs -> {
+                        try {
+                            out.write(jsonMapper.writeValueAsString(toJson(rs)));
+                            out.newLine();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        lastId[0] = rs.getLong("id");
+                        archivedIds.accept(lastId[0]);
+                        chunkRows[0]++;
+                    }, chunkArgs);
+                    rows[0] += chunkRows[0];
+                } while (chunkRows[0] == chunkSize);
+            }
+            if (rows[0] == 0) {
+                Files.delete(tmp);
+                return 0;
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            return rows[0];
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Cannot archive auth_audit_log " + name + " to " + archiveDir, e);
+        }
+    }
+
+    /**
+     * Borra las filas del mes con id hasta {@code lastArchivedId} en trozos por id: se busca el id final de cada
+     * trozo y se borra el rango {@code (desde, hasta]}, sin cargar los ids del mes en memoria.
+     */
+    private void deleteArchived(long lastArchivedId, Timestamp from, Timestamp to) {
+        long after = Long.MIN_VALUE;
+        List<Long> chunk;
+        do {
+            chunk = jdbcTemplate.queryForList("select id from auth_audit_log"
+                    + " where created_at >= ? and created_at < ? and id > ? and id <= ? order by id limit ?",
+                Long.class, from, to, after, lastArchivedId, chunkSize);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            long upTo = chunk.get(chunk.size() - 1);
+            jdbcTemplate.update("delete from auth_audit_log where created_at >= ? and created_at < ? and id > ? and id <= ?",
+                from, to, after, upTo);
+            after = upTo;
+        } while (chunk.size() == chunkSize);
+    }
+
+    private Path uniqueTarget(String name) {
+        Path target = archiveDir.resolve("auth_audit_log-" + name + ".ndjson.gz");
+        // Si el mes ya se archivó antes (filas que llegaron tarde) no se pisa el archivo anterior
+        for (int i = 1; Files.exists(target); i++) {
+            target = archiveDir.resolve("auth_audit_log-" + name + "-" + i + ".ndjson.gz");
+        }
+        return target;
+    }
+
+    private static Map<String, Object> toJson(ResultSet rs) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", rs.getLong("id"));
+        long userId = rs.getLong("auth_user_id");
+        row.put("auth_user_id", rs.wasNull() ? null : userId);
+        row.put("event_type", rs.getString("event_type"));
+        row.put("ip_address", rs.getString("ip_address"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        row.put("created_at", createdAt != null ? createdAt.toLocalDateTime().toString() : null);
+        return row;
+    }
+
+    private boolean isMySql() {
+        String product = jdbcTemplate.execute(
+            (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase().contains("mysql");
+    }
+
+    private List<Partition> listPartitions() {
+        return jdbcTemplate.query(
+            "select partition_name, partition_description from information_schema.partitions"
+                + " where table_schema = database() and table_name = 'auth_audit_log' and partition_name is not null"
+                + " order by partition_ordinal_position",
+            (rs, i) -> new Partition(rs.getString(1), rs.getString(2)));
+    }
+}
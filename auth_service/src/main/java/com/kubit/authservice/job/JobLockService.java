@@ -0,0 +1,85 @@
+package com.kubit.authservice.job;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.kubit.authservice.domain.entity.JobLock;
+import com.kubit.authservice.domain.repository.JobLockRepository;
+
+/**
+ * Candados con lease en la tabla {@code job_lock} para que un trabajo programado corra en una sola instancia.
+ * Si la instancia que lo tiene muere, el candado se libera solo al vencer el lease.
+ */
+@Component
+public class JobLockService {
+    private static final Logger log = LoggerFactory.getLogger(JobLockService.class);
+
+    private final JobLockRepository jobLockRepository;
+    private final String owner;
+
+    public JobLockService(JobLockRepository jobLockRepository) {
+        this.jobLockRepository = jobLockRepository;
+        this.owner = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return true si esta instancia tiene el candado hasta {@code now + lease}
+     */
+    public boolean tryLock(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobLockRepository.tryAcquire(name, owner, now, now.plus(lease)) == 1) {
+            return true;
+        }
+        if (jobLockRepository.existsById(name)) {
+            return false;
+        }
+        // Primera ejecución del trabajo: la fila no existe. Si dos instancias la insertan a la vez, la PK decide
+        try {
+            jobLockRepository.saveAndFlush(JobLock.builder().name(name).lockedBy(owner).lockedUntil(now.plus(lease)).build());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    public void unlock(String name) {
+        jobLockRepository.release(name, owner, LocalDateTime.now());
+    }
+
+    /**
+     * Ejecuta {@code task} solo si se obtiene el candado; si otra instancia lo tiene, no hace nada.
+     * @return true si se ejecutó
+     */
+    public boolean runLocked(String name, Duration lease, Runnable task) {
+        if (!tryLock(name, lease)) {
+            log.debug("Trabajo {} en curso en otra instancia; se omite", name);
+            return false;
+        }
+        try {
+            task.run();
+            return true;
+        } finally {
+            unlock(name);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.kubit.authservice.job;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kubit.authservice.domain.repository.RefreshTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Purga de {@code refresh_token}: borra los tokens expirados y los revocados hace más de
+ * {@code auth.refreshToken.purge.revokedRetentionHours} en trozos de {@code chunkSize} filas en orden de PK, cada uno
+ * en su propio DELETE corto, con una pausa de {@code throttleMs} entre trozos para no retener locks ni saturar la
+ * replicación. Corre en una sola instancia ({@link JobLockService}) y se detiene antes de que venza el lease.
+ * <p>
+ * Métricas: {@code auth.refresh_token.purged} (filas borradas) y {@code auth.refresh_token.purge.lag}
+ * (segundos desde que se volvió purgable el token más viejo que sigue en la tabla: desde su {@code expires_at}, o
+ * desde {@code revoked_at} más la retención si es un revocado sin expirar).
+ */
+@Component
+public class RefreshTokenPurgeJob {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenPurgeJob.class);
+    static final String LOCK_NAME = "refresh-token-purge";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JobLockService jobLockService;
+    private final int chunkSize;
+    private final long throttleMs;
+    private final Duration revokedRetention;
+    private final Duration lease;
+    private final Counter purged;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public RefreshTokenPurgeJob(
+        RefreshTokenRepository refreshTokenRepository,
+        JobLockService jobLockService,
+        ObjectProvider<MeterRegistry> meterRegistry,
+        @Value("${auth.refreshToken.purge.chunkSize:500}") int chunkSize,
+        @Value("${auth.refreshToken.purge.throttleMs:100}") long throttleMs,
+        @Value("${auth.refreshToken.purge.revokedRetentionHours:24}") long revokedRetentionHours,
+        @Value("${auth.refreshToken.purge.lockLeaseMs:600000}") long lockLeaseMs
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jobLockService = jobLockService;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.throttleMs = throttleMs;
+        this.revokedRetention = Duration.ofHours(revokedRetentionHours);
+        this.lease = Duration.ofMillis(lockLeaseMs);
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.purged = Counter.builder("auth.refresh_token.purged")
+            .description("Refresh tokens expirados o revocados eliminados")
+            .register(registry);
+        Gauge.builder("auth.refresh_token.purge.lag", lagSeconds, AtomicLong::get)
+            .description("Segundos desde que se volvió purgable el refresh token purgable más viejo")
+            .baseUnit("seconds")
+            .strongReference(true)
+            .register(registry);
+    }
+
+    @Scheduled(cron = "${auth.refreshToken.purge.cron:0 */15 * * * *}")
+    public void run() {
+        jobLockService.runLocked(LOCK_NAME, lease, this::purge);
+    }
+
+    /**
+     * @return filas eliminadas
+     */
+    public long purge() {
+        long started = System.nanoTime();
+        // El presupuesto deja margen antes de que venza el lease para que otra instancia no arranque encima
+        long budgetNanos = lease.toNanos() * 8 / 10;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime revokedBefore = now.minus(revokedRetention);
+        long total = 0;
+        long afterId = 0;
+        while (System.nanoTime() - started < budgetNanos) {
+            List<Long> ids = refreshTokenRepository.findPurgeableIds(afterId, now, revokedBefore,
+                PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            refreshTokenRepository.deleteAllByIdInBatch(ids);
+            purged.increment(ids.size());
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        lagSeconds.set(lagSeconds(LocalDateTime.now()));
+        if (total > 0) {
+            log.info("Purgados {} refresh tokens en {} ms", total, (System.nanoTime() - started) / 1_000_000);
+        }
+        return total;
+    }
+
+    private long lagSeconds(LocalDateTime now) {
+        long expired = refreshTokenRepository.findOldestExpiredAt(now)
+            .map(oldest -> Duration.between(oldest, now).toSeconds())
+            .orElse(0L);
+        long revoked = refreshTokenRepository.findOldestRevokedAt(now.minus(revokedRetention))
+            .map(oldest -> Duration.between(oldest.plus(revokedRetention), now).toSeconds())
+            .orElse(0L);
+        return Math.max(expired, revoked);
+    }
+
+    public long getLagSeconds() {
+        return lagSeconds.get();
+    }
+
+    private boolean pause() {
+        if (throttleMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(throttleMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
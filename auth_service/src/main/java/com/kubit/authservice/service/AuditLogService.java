@@ -0,0 +1,11 @@
+package com.kubit.authservice.service;
+
+import com.kubit.authservice.domain.entity.AudithLog;
+
+public interface AuditLogService {
+    /**
+     * Registra un evento de auditoría. La escritura en base de datos es asíncrona y por lotes:
+     * el método no espera al INSERT.
+     */
+    void record(AudithLog log);
+}
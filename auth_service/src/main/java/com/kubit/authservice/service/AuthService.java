@@ -14,7 +14,7 @@ public interface AuthService {
 
     UserLoginResponse refreshToken(String refreshToken, String deviceId, String ipAddress);
 
-    void logout(String refreshToken, String deviceId, String ipAddress);
+    void logout(String refreshToken, String accessToken, String deviceId, String ipAddress);
 
     void logoutAllForUser(Long userId, String ipAddress);
 
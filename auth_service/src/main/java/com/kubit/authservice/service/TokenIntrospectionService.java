@@ -0,0 +1,12 @@
+package com.kubit.authservice.service;
+
+import java.util.List;
+
+import com.kubit.authservice.domain.entity.TokenIntrospection;
+
+public interface TokenIntrospectionService {
+    /**
+     * Valida varios access tokens en paralelo. El resultado conserva el orden de entrada.
+     */
+    List<TokenIntrospection> introspect(List<String> tokens);
+}
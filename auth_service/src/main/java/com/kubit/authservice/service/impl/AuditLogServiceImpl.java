@@ -0,0 +1,322 @@
+package com.kubit.authservice.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import com.kubit.authservice.domain.entity.AudithLog;
+import com.kubit.authservice.domain.repository.AudithLogRepository;
+import com.kubit.authservice.service.AuditLogService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Auditoría write-behind: los eventos se encolan en memoria (cola acotada) y un hilo de fondo los inserta
+ * en una transacción cuando se juntan {@code auth.audit.batchSize} eventos o pasa {@code auth.audit.flushIntervalMs}
+ * desde el primero. Los ids salen del generador pooled de {@link AudithLog}, así que Hibernate agrupa los INSERT
+ * de a {@code hibernate.jdbc.batch_size}; con {@code rewriteBatchedStatements=true} en la URL de MySQL cada grupo
+ * es un INSERT multi-fila.
+ * <p>
+ * Si la cola se llena se aplica {@code auth.audit.overflow}:
+ * <ul>
+ * <li>{@code BLOCK}: el request espera a que haya lugar.</li>
+ * <li>{@code DROP}: el evento se descarta y se cuenta en {@code auth.audit.dropped}.</li>
+ * <li>{@code SPILL}: el evento se agrega a {@code auth.audit.spillFile} y se reinserta cuando el writer queda libre.</li>
+ * </ul>
+ * Al apagar se vacía la cola antes de cerrar el datasource. Los eventos que llegan después se desvían a
+ * {@code auth.audit.spillFile} con cualquier política (el writer del próximo arranque los reinserta): escribirlos
+ * en el hilo del request usaría el generador pooled de {@link AudithLog} fuera del writer.
+ */
+@Service
+public class AuditLogServiceImpl implements AuditLogService {
+        private static final Logger logger = LoggerFactory.getLogger(AuditLogServiceImpl.class);
+
+        public enum OverflowPolicy { BLOCK, DROP, SPILL }
+
+        private final AudithLogRepository audithLogRepository;
+        private final TransactionTemplate transactionTemplate;
+        private final BlockingQueue<AudithLog> queue;
+        private final int batchSize;
+        private final long flushIntervalMs;
+        private final long shutdownTimeoutMs;
+        private final OverflowPolicy overflow;
+        private final Path spillFile;
+        private final ReentrantLock spillLock = new ReentrantLock();
+        private final Counter written;
+        private final Counter dropped;
+        private final Counter spilled;
+        private final Counter failed;
+        private Thread writer;
+        private volatile boolean running;
+        private volatile boolean closed;
+
+        public AuditLogServiceImpl(AudithLogRepository audithLogRepository,
+                        PlatformTransactionManager transactionManager,
+                        ObjectProvider<MeterRegistry> meterRegistry,
+                        @Value("${auth.audit.queueCapacity:10000}") int queueCapacity,
+                        @Value("${auth.audit.batchSize:200}") int batchSize,
+                        @Value("${auth.audit.flushIntervalMs:200}") long flushIntervalMs,
+                        @Value("${auth.audit.shutdownTimeoutMs:10000}") long shutdownTimeoutMs,
+                        @Value("${auth.audit.overflow:DROP}") OverflowPolicy overflow,
+                        @Value("${auth.audit.spillFile:}") String spillFile) {
+                this.audithLogRepository = audithLogRepository;
+                this.transactionTemplate = new TransactionTemplate(transactionManager);
+                this.queue = new ArrayBlockingQueue<>(queueCapacity);
+                this.batchSize = Math.max(1, batchSize);
+                this.flushIntervalMs = Math.max(1, flushIntervalMs);
+                this.shutdownTimeoutMs = shutdownTimeoutMs;
+                this.overflow = overflow;
+                this.spillFile = StringUtils.hasText(spillFile) ? Path.of(spillFile)
+                                : Path.of(System.getProperty("java.io.tmpdir"), "auth-audit-spill.tsv");
+                MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+                Gauge.builder("auth.audit.queue.depth", queue, BlockingQueue::size)
+                                .description("Eventos de auditoría pendientes de escribir")
+                                .register(registry);
+                this.written = counter(registry, "auth.audit.written", "Eventos insertados");
+                this.dropped = counter(registry, "auth.audit.dropped", "Eventos descartados por cola llena");
+                this.spilled = counter(registry, "auth.audit.spilled", "Eventos desviados a disco por cola llena");
+                this.failed = counter(registry, "auth.audit.failed", "Eventos perdidos por error al insertar");
+        }
+
+        @PostConstruct
+        public void start() {
+                running = true;
+                writer = new Thread(this::runWriter, "audit-writer");
+                writer.setDaemon(true);
+                writer.start();
+        }
+
+        @Override
+        public void record(AudithLog log) {
+                if (log.getCreatedAt() == null) {
+                        // Hora del evento, no de la escritura del lote
+                        log.setCreatedAt(LocalDateTime.now());
+                }
+                if (closed) {
+                        // Después del apagado ya no hay writer: a disco, para el próximo arranque
+                        spill(List.of(log));
+                        return;
+                }
+                if (queue.offer(log)) {
+                        return;
+                }
+                switch (overflow) {
+                        case BLOCK -> {
+                                try {
+                                        queue.put(log);
+                                } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        dropped.increment();
+                                }
+                        }
+                        case SPILL -> spill(List.of(log));
+                        case DROP -> dropped.increment();
+                }
+        }
+
+        public int queueDepth() {
+                return queue.size();
+        }
+
+        /**
+         * Deja de aceptar eventos en la cola y espera a que el writer escriba lo pendiente.
+         */
+        @PreDestroy
+        public void close() {
+                closed = true;
+                running = false;
+                if (writer == null) {
+                        drain();
+                        return;
+                }
+                try {
+                        writer.join(shutdownTimeoutMs);
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                }
+                if (writer.isAlive()) {
+                        logger.warn("El writer de auditoría no terminó en {} ms; quedan {} eventos", shutdownTimeoutMs,
+                                        queue.size());
+                        return;
+                }
+                // Encolados entre la lectura de closed y el último drain del writer
+                List<AudithLog> late = new ArrayList<>();
+                if (queue.drainTo(late) > 0) {
+                        spill(late);
+                }
+        }
+
+        private void runWriter() {
+                List<AudithLog> batch = new ArrayList<>(batchSize);
+                while (running || !queue.isEmpty()) {
+                        try {
+                                AudithLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                                if (first == null) {
+                                        replaySpill();
+                                        continue;
+                                }
+                                batch.add(first);
+                                // Se junta el lote hasta batchSize o hasta flushIntervalMs desde el primer evento
+                                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                                while (batch.size() < batchSize) {
+                                        long remaining = deadline - System.nanoTime();
+                                        AudithLog next = running ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                                        if (next == null) {
+                                                break;
+                                        }
+                                        batch.add(next);
+                                }
+                                write(batch);
+                                batch.clear();
+                        } catch (InterruptedException e) {
+                                running = false;
+                        } catch (RuntimeException e) {
+                                logger.error("Error inesperado en el writer de auditoría", e);
+                                batch.clear();
+                        }
+                }
+                drain();
+        }
+
+        private void drain() {
+                List<AudithLog> batch = new ArrayList<>(batchSize);
+                while (queue.drainTo(batch, batchSize) > 0) {
+                        write(batch);
+                        batch.clear();
+                }
+                replaySpill();
+        }
+
+        private void write(List<AudithLog> batch) {
+                try {
+                        insert(batch);
+                } catch (DataAccessException e) {
+                        if (overflow == OverflowPolicy.SPILL) {
+                                logger.warn("No se pudo insertar lote de auditoría ({}); se desvía a {}", e.getMessage(), spillFile);
+                                spill(batch);
+                        } else {
+                                logger.error("Se pierden {} eventos de auditoría: {}", batch.size(), e.getMessage());
+                                failed.increment(batch.size());
+                        }
+                }
+        }
+
+        private void spill(List<AudithLog> logs) {
+                spillLock.lock();
+                try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                        for (AudithLog log : logs) {
+                                out.write(log.getAuthUserId() != null ? log.getAuthUserId().toString() : "");
+                                out.write('\t');
+                                out.write(field(log.getEventType()));
+                                out.write('\t');
+                                out.write(field(log.getIpAddress()));
+                                out.write('\t');
+                                out.write(log.getCreatedAt().toString());
+                                out.newLine();
+                        }
+                        spilled.increment(logs.size());
+                } catch (IOException e) {
+                        logger.error("No se pudo escribir {}; se pierden {} eventos de auditoría", spillFile, logs.size());
+                        dropped.increment(logs.size());
+                } finally {
+                        spillLock.unlock();
+                }
+        }
+
+        /**
+         * Reinserta lo desviado a disco. El archivo se renombra antes de leerlo para que los eventos que se sigan
+         * desviando vayan a uno nuevo; si la base de datos falla a medias el archivo se conserva y se reintenta
+         * completo (puede duplicar filas de auditoría, no perderlas).
+         */
+        private void replaySpill() {
+                Path replay = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+                spillLock.lock();
+                try {
+                        if (!Files.exists(replay)) {
+                                if (!Files.exists(spillFile) || Files.size(spillFile) == 0) {
+                                        return;
+                                }
+                                Files.move(spillFile, replay, StandardCopyOption.ATOMIC_MOVE);
+                        }
+                } catch (IOException e) {
+                        logger.warn("No se pudo preparar {} para reinsertar: {}", spillFile, e.getMessage());
+                        return;
+                } finally {
+                        spillLock.unlock();
+                }
+                try {
+                        List<String> lines = Files.readAllLines(replay, StandardCharsets.UTF_8);
+                        List<AudithLog> batch = new ArrayList<>(batchSize);
+                        for (String line : lines) {
+                                AudithLog log = parse(line);
+                                if (log != null) {
+                                        batch.add(log);
+                                }
+                                if (batch.size() == batchSize) {
+                                        insert(batch);
+                                        batch.clear();
+                                }
+                        }
+                        if (!batch.isEmpty()) {
+                                insert(batch);
+                        }
+                        Files.delete(replay);
+                        logger.info("Reinsertados {} eventos de auditoría desde {}", lines.size(), replay);
+                } catch (IOException | DataAccessException e) {
+                        logger.warn("No se pudo reinsertar {}: {}", replay, e.getMessage());
+                }
+        }
+
+        private void insert(List<AudithLog> batch) {
+                transactionTemplate.executeWithoutResult(status -> audithLogRepository.saveAll(batch));
+                written.increment(batch.size());
+        }
+
+        private static AudithLog parse(String line) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length != 4) {
+                        return null;
+                }
+                return AudithLog.builder()
+                                .authUserId(parts[0].isEmpty() ? null : Long.valueOf(parts[0]))
+                                .eventType(parts[1].isEmpty() ? null : parts[1])
+                                .ipAddress(parts[2].isEmpty() ? null : parts[2])
+                                .createdAt(LocalDateTime.parse(parts[3]))
+                                .build();
+        }
+
+        private static String field(String value) {
+                return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        }
+
+        private static Counter counter(MeterRegistry registry, String name, String description) {
+                return Counter.builder(name).description(description).register(registry);
+        }
+}
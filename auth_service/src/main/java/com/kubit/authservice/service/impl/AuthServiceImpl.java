@@ -1,11 +1,14 @@
 package com.kubit.authservice.service.impl;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import com.kubit.authservice.domain.entity.AudithLog;
 import com.kubit.authservice.domain.entity.AuthUser;
@@ -15,149 +18,323 @@ import com.kubit.authservice.domain.entity.RefreshToken;
 import com.kubit.authservice.domain.entity.RegisterRequest;
 import com.kubit.authservice.domain.entity.Role;
 import com.kubit.authservice.domain.entity.UserLoginResponse;
-import com.kubit.authservice.domain.repository.AudithLogRepository;
 import com.kubit.authservice.domain.repository.AuthUserRepository;
 import com.kubit.authservice.domain.repository.RefreshTokenRepository;
-import com.kubit.authservice.domain.repository.RoleRepository;
+import com.kubit.authservice.service.AuditLogService;
 import com.kubit.authservice.service.AuthService;
+import com.kubit.authservice.util.AccessTokenDenylist;
+import com.kubit.authservice.util.AuthMetrics;
+import com.kubit.authservice.util.AuthMetrics.Operation;
+import com.kubit.authservice.util.AuthMetrics.Outcome;
+import com.kubit.authservice.util.AuthMetrics.Phase;
 import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.RefreshRotationCache;
+import com.kubit.authservice.util.RoleCatalog;
+import com.kubit.authservice.util.RoleRef;
+import com.kubit.authservice.util.SplitRefreshToken;
+import com.kubit.authservice.util.VerifiedToken;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
         private final AuthUserRepository authUserRepository;
-        private final RoleRepository roleRepository;
+        private final RoleCatalog roleCatalog;
         private final PasswordEncoder passwordEncoder;
         private final RefreshTokenRepository refreshTokenRepository;
         private final JwtUtil jwtUtil;
-        private final AudithLogRepository audithLogRepository;
+        private final AuditLogService auditLogService;
+        private final AccessTokenDenylist accessTokenDenylist;
+        private final AuthMetrics authMetrics;
+        private final RefreshRotationCache refreshRotationCache;
+        private final TransactionOperations transactionOperations;
+
+        // Cada método mide su latencia y cuenta su resultado; outcome queda en ERROR si sale por una excepción
+        // no prevista. Los rechazos conservan el mensaje genérico: el motivo solo va a la métrica.
 
         public AuthUser register(RegisterRequest request) {
-                if (authUserRepository.existsByEmail(request.getEmail())) {
-                        throw new IllegalArgumentException("Email already registered");
-                }
-                Role userRole = roleRepository.findByName("ROLE_USER")
-                                .orElseThrow(() -> new IllegalStateException("Default role not found"));
-                AuthUser user = AuthUser.builder()
-                                .email(request.getEmail())
-                                .passwordHash(passwordEncoder.encode(request.getPassword()))
-                                .status(AuthUserStatus.ACTIVE)
-                                .roles(Set.of(userRole))
-                                .build();
-                return authUserRepository.save(user);
+                Timer.Sample sample = authMetrics.start();
+                Outcome outcome = Outcome.ERROR;
+                try {
+                        if (authUserRepository.existsByEmail(request.getEmail())) {
+                                outcome = Outcome.INVALID;
+                                throw new IllegalArgumentException("Email already registered");
+                        }
+                        // Entidad propia de este registro; la del catálogo es una vista compartida
+                        Role userRole = roleCatalog.findByName("ROLE_USER")
+                                        .map(RoleRef::toEntity)
+                                        .orElseThrow(() -> new IllegalStateException("Default role not found"));
+                        String passwordHash = authMetrics.phase(Phase.PASSWORD,
+                                        () -> passwordEncoder.encode(request.getPassword()));
+                        AuthUser user = AuthUser.builder()
+                                        .email(request.getEmail())
+                                        .passwordHash(passwordHash)
+                                        .status(AuthUserStatus.ACTIVE)
+                                        .roles(Set.of(userRole))
+                                        .build();
+                        AuthUser saved = authMetrics.phase(Phase.PERSIST, () -> authUserRepository.save(user));
+                        outcome = Outcome.SUCCESS;
+                        return saved;
+                } finally {
+                        authMetrics.stop(sample, Operation.REGISTER, outcome);
+                }
         }
 
         @Override
         public UserLoginResponse login(LoginRequest request) {
-                AuthUser user = authUserRepository.findByEmail(request.getEmail())
-                                .orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
-                if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
-                        throw new IllegalArgumentException("Invalid credentials");
-                }
-                String deviceId = request.getDeviceId();
-                String ipAddress = request.getIpAddress();
-                // Revocar refreshToken anterior de este user+deviceId si existe
-                List<RefreshToken> existingTokens = refreshTokenRepository.findAllByAuthUserIdAndDeviceId(user.getId(),
-                                deviceId);
-                existingTokens.forEach(token -> {
-                        token.setRevoked(true);
-                        refreshTokenRepository.save(token);
-                });
-                // Generar los tokens nuevos
-                String accessToken = jwtUtil.generateToken(user);
-                String refreshTokenStr = jwtUtil.generateRefreshToken(user);
-                // Persistir refresh token
-                RefreshToken refreshToken = RefreshToken.builder()
-                                .authUser(user)
-                                .token(refreshTokenStr)
-                                .deviceId(deviceId)
-                                .ipAddress(ipAddress)
-                                .expiresAt(LocalDateTime.now().plusSeconds(jwtUtil.getRefreshExpirationMs() / 1000))
-                                .revoked(false)
-                                .build();
-                refreshTokenRepository.save(refreshToken);
-                // Auditoría (si tienes AudithLogRepository inyectado)
-                AudithLog log = AudithLog.builder()
-                                .authUserId(user.getId())
-                                .eventType("LOGIN")
-                                .ipAddress(ipAddress)
-                                .build();
-                audithLogRepository.save(log);
-                return new UserLoginResponse(user, accessToken, refreshTokenStr);
+                Timer.Sample sample = authMetrics.start();
+                Outcome outcome = Outcome.ERROR;
+                try {
+                        AuthUser user = authMetrics.phase(Phase.USER_LOOKUP,
+                                        () -> authUserRepository.findByEmail(request.getEmail())).orElse(null);
+                        if (user == null || !authMetrics.phase(Phase.PASSWORD,
+                                        () -> passwordEncoder.matches(request.getPassword(), user.getPasswordHash()))) {
+                                outcome = Outcome.BAD_CREDENTIALS;
+                                throw new IllegalArgumentException("Invalid credentials");
+                        }
+                        // Hash heredado o con otro costo: se reescribe ahora que se conoce la contraseña
+                        if (passwordEncoder.upgradeEncoding(user.getPasswordHash())) {
+                                user.setPasswordHash(authMetrics.phase(Phase.PASSWORD,
+                                                () -> passwordEncoder.encode(request.getPassword())));
+                                authUserRepository.save(user);
+                        }
+                        String deviceId = request.getDeviceId();
+                        String ipAddress = request.getIpAddress();
+                        // Revocar refreshToken anterior de este user+deviceId si existe (un solo UPDATE)
+                        authMetrics.phase(Phase.REVOKE,
+                                        () -> refreshTokenRepository.revokeAllByAuthUserIdAndDeviceId(user.getId(), deviceId));
+                        // Generar los tokens nuevos
+                        String accessToken = authMetrics.phase(Phase.MINT, () -> newAccessToken(user));
+                        String refreshTokenStr = authMetrics.phase(Phase.MINT, () -> jwtUtil.generateRefreshToken(user));
+                        // Persistir refresh token
+                        RefreshToken refreshToken = newRefreshToken(user, refreshTokenStr, deviceId, ipAddress);
+                        authMetrics.phase(Phase.PERSIST, () -> refreshTokenRepository.save(refreshToken));
+                        // Auditoría (asíncrona, no espera al INSERT)
+                        AudithLog log = AudithLog.builder()
+                                        .authUserId(user.getId())
+                                        .eventType("LOGIN")
+                                        .ipAddress(ipAddress)
+                                        .build();
+                        authMetrics.phase(Phase.AUDIT, () -> auditLogService.record(log));
+                        outcome = Outcome.SUCCESS;
+                        return new UserLoginResponse(user, accessToken, refreshTokenStr);
+                } finally {
+                        authMetrics.stop(sample, Operation.LOGIN, outcome);
+                }
         }
 
+        // Lee y revoca en el primario dentro de una transacción de escritura (con una réplica atrasada se podría
+        // rotar dos veces el mismo token). La espera por el par de una rotación concurrente va fuera de ella, para
+        // no retener la conexión del pool mientras el ganador commitea.
         @Override
         public UserLoginResponse refreshToken(String refreshTokenStr, String deviceId, String ipAddress) {
+                Timer.Sample sample = authMetrics.start();
+                Outcome outcome = Outcome.ERROR;
+                try {
+                        RotationResult result = transactionOperations.execute(
+                                        status -> rotate(refreshTokenStr, deviceId, ipAddress));
+                        if (result.issued() != null) {
+                                outcome = Outcome.SUCCESS;
+                                return result.issued();
+                        }
+                        // Revocado por una rotación concurrente: mismo par que recibió la otra pestaña
+                        Optional<UserLoginResponse> concurrent = result.rotatedTokenId() != null
+                                        ? refreshRotationCache.await(result.rotatedTokenId()) : Optional.empty();
+                        if (concurrent.isPresent()) {
+                                outcome = Outcome.GRACE;
+                                return concurrent.get();
+                        }
+                        outcome = result.rejected();
+                        throw new IllegalArgumentException("Invalid/expired refresh token for device");
+                } finally {
+                        authMetrics.stop(sample, Operation.REFRESH, outcome);
+                }
+        }
+
+        /**
+         * Parte transaccional de la rotación: busca y valida el token, lo revoca con el UPDATE condicional y emite
+         * el par nuevo. Si el token ya estaba revocado devuelve su id para esperar la rotación concurrente.
+         */
+        private RotationResult rotate(String refreshTokenStr, String deviceId, String ipAddress) {
                 // Busca y valida el refreshToken para el usuario y deviceId
-                RefreshToken oldToken = refreshTokenRepository.findByToken(refreshTokenStr)
-                                .filter(token -> !token.getRevoked())
-                                .filter(token -> token.getExpiresAt().isAfter(LocalDateTime.now()))
-                                .filter(token -> deviceId.equals(token.getDeviceId()))
-                                .orElseThrow(() -> new IllegalArgumentException(
-                                                "Invalid/expired refresh token for device"));
-                AuthUser user = oldToken.getAuthUser();
-                // Revoca el token anterior (rotación)
-                oldToken.setRevoked(true);
-                refreshTokenRepository.save(oldToken);
-                // Generar y guardar nuevos tokens
-                String newAccessToken = jwtUtil.generateToken(user);
-                String newRefreshToken = jwtUtil.generateRefreshToken(user);
-                RefreshToken newToken = RefreshToken.builder()
-                                .authUser(user)
-                                .token(newRefreshToken)
-                                .deviceId(deviceId)
-                                .ipAddress(ipAddress)
-                                .expiresAt(LocalDateTime.now().plusSeconds(jwtUtil.getRefreshExpirationMs() / 1000))
-                                .revoked(false)
-                                .build();
-                refreshTokenRepository.save(newToken);
+                RefreshToken oldToken = authMetrics.phase(Phase.USER_LOOKUP,
+                                () -> findWithUserAndRoles(refreshTokenStr)).orElse(null);
+                Outcome rejected = rejection(oldToken, deviceId);
+                if (rejected != null) {
+                        return RotationResult.rejected(rejected == Outcome.REVOKED ? oldToken.getId() : null, rejected);
+                }
+                // Rotación atómica: de las requests concurrentes con este token, solo una revoca la fila
+                int revoked = authMetrics.phase(Phase.REVOKE,
+                                () -> refreshTokenRepository.revokeIfActive(oldToken.getId()));
+                if (revoked == 0) {
+                        return RotationResult.rejected(oldToken.getId(), Outcome.REVOKED);
+                }
+                CompletableFuture<UserLoginResponse> rotation = refreshRotationCache.begin(oldToken.getId());
+                try {
+                        UserLoginResponse issued = issueRotated(oldToken.getAuthUser(), deviceId, ipAddress);
+                        // Se publica a los que esperan recién al commit de esta transacción
+                        refreshRotationCache.complete(oldToken.getId(), rotation, issued);
+                        return new RotationResult(issued, null, null);
+                } catch (RuntimeException e) {
+                        refreshRotationCache.abort(oldToken.getId(), rotation);
+                        throw e;
+                }
+        }
+
+        // Par emitido, o rechazo con el id del token rotado cuando vale la pena esperar a la rotación concurrente
+        private record RotationResult(UserLoginResponse issued, Long rotatedTokenId, Outcome rejected) {
+                static RotationResult rejected(Long rotatedTokenId, Outcome rejected) {
+                        return new RotationResult(null, rotatedTokenId, rejected);
+                }
+        }
+
+        // iat posterior a un logout-all reciente del usuario, aunque caiga en el mismo segundo
+        private String newAccessToken(AuthUser user) {
+                return jwtUtil.generateToken(user, accessTokenDenylist.minimumIssuedAt(user.getId().toString()));
+        }
+
+        private UserLoginResponse issueRotated(AuthUser user, String deviceId, String ipAddress) {
+                String newAccessToken = authMetrics.phase(Phase.MINT, () -> newAccessToken(user));
+                String newRefreshToken = authMetrics.phase(Phase.MINT, () -> jwtUtil.generateRefreshToken(user));
+                RefreshToken newToken = newRefreshToken(user, newRefreshToken, deviceId, ipAddress);
+                authMetrics.phase(Phase.PERSIST, () -> refreshTokenRepository.save(newToken));
                 // Audit log
                 AudithLog log = AudithLog.builder()
                                 .authUserId(user.getId())
                                 .eventType("REFRESH_TOKEN")
                                 .ipAddress(ipAddress)
                                 .build();
-                audithLogRepository.save(log);
+                authMetrics.phase(Phase.AUDIT, () -> auditLogService.record(log));
                 return new UserLoginResponse(user, newAccessToken, newRefreshToken);
         }
 
         @Override
-        public void logout(String refreshTokenStr, String deviceId, String ipAddress) {
-                RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenStr)
-                                .filter(token -> deviceId.equals(token.getDeviceId()))
-                                .orElseThrow(() -> new IllegalArgumentException("Refresh token/deviceId not found"));
-                refreshToken.setRevoked(true);
-                refreshTokenRepository.save(refreshToken);
-                AudithLog log = AudithLog.builder()
-                                .authUserId(refreshToken.getAuthUser().getId())
-                                .eventType("LOGOUT")
-                                .ipAddress(ipAddress)
-                                .build();
-                audithLogRepository.save(log);
+        @Transactional
+        public void logout(String refreshTokenStr, String accessToken, String deviceId, String ipAddress) {
+                Timer.Sample sample = authMetrics.start();
+                Outcome outcome = Outcome.ERROR;
+                try {
+                        RefreshToken refreshToken = authMetrics.phase(Phase.USER_LOOKUP,
+                                        () -> findToken(refreshTokenStr)).orElse(null);
+                        if (refreshToken == null || !deviceId.equals(refreshToken.getDeviceId())) {
+                                outcome = refreshToken == null ? Outcome.INVALID : Outcome.DEVICE_MISMATCH;
+                                throw new IllegalArgumentException("Refresh token/deviceId not found");
+                        }
+                        refreshToken.setRevoked(true);
+                        refreshToken.setRevokedAt(LocalDateTime.now());
+                        authMetrics.phase(Phase.REVOKE, () -> refreshTokenRepository.save(refreshToken));
+                        // El access token sigue siendo válido hasta su exp: se agrega a la denylist por jti
+                        if (accessToken != null) {
+                                jwtUtil.verify(accessToken)
+                                                .filter(token -> refreshToken.getAuthUser().getId().toString().equals(token.subject()))
+                                                .ifPresent(accessTokenDenylist::revoke);
+                        }
+                        AudithLog log = AudithLog.builder()
+                                        .authUserId(refreshToken.getAuthUser().getId())
+                                        .eventType("LOGOUT")
+                                        .ipAddress(ipAddress)
+                                        .build();
+                        authMetrics.phase(Phase.AUDIT, () -> auditLogService.record(log));
+                        outcome = Outcome.SUCCESS;
+                } finally {
+                        authMetrics.stop(sample, Operation.LOGOUT, outcome);
+                }
         }
 
         @Override
         public void logoutAllForUser(Long userId, String ipAddress) {
-                var tokens = refreshTokenRepository.findAll().stream()
-                                .filter(t -> t.getAuthUser().getId().equals(userId) && !t.getRevoked())
-                                .toList();
-                tokens.forEach(token -> {
-                        token.setRevoked(true);
-                        refreshTokenRepository.save(token);
-                });
-                AudithLog log = AudithLog.builder()
-                                .authUserId(userId)
-                                .eventType("LOGOUT_ALL")
-                                .ipAddress(ipAddress)
-                                .build();
-                audithLogRepository.save(log);
+                Timer.Sample sample = authMetrics.start();
+                Outcome outcome = Outcome.ERROR;
+                try {
+                        authMetrics.phase(Phase.REVOKE, () -> refreshTokenRepository.revokeAllByAuthUserId(userId));
+                        accessTokenDenylist.revokeAllForSubject(userId.toString());
+                        AudithLog log = AudithLog.builder()
+                                        .authUserId(userId)
+                                        .eventType("LOGOUT_ALL")
+                                        .ipAddress(ipAddress)
+                                        .build();
+                        authMetrics.phase(Phase.AUDIT, () -> auditLogService.record(log));
+                        outcome = Outcome.SUCCESS;
+                } finally {
+                        authMetrics.stop(sample, Operation.LOGOUT_ALL, outcome);
+                }
         }
 
         @Override
         public boolean validateJwt(String jwt) {
-                return jwtUtil.validateToken(jwt);
+                Timer.Sample sample = authMetrics.start();
+                Outcome outcome = Outcome.ERROR;
+                try {
+                        VerifiedToken token = jwtUtil.verify(jwt).orElse(null);
+                        if (token == null) {
+                                outcome = Outcome.INVALID;
+                        } else if (accessTokenDenylist.isRevoked(token)) {
+                                outcome = Outcome.REVOKED;
+                        } else {
+                                outcome = Outcome.SUCCESS;
+                        }
+                        return outcome == Outcome.SUCCESS;
+                } finally {
+                        authMetrics.stop(sample, Operation.VALIDATE, outcome);
+                }
+        }
+
+        /**
+         * Solo se guardan el selector y el SHA-256 del verificador, nunca el token que recibe el cliente.
+         */
+        private RefreshToken newRefreshToken(AuthUser user, String value, String deviceId, String ipAddress) {
+                SplitRefreshToken split = SplitRefreshToken.parse(value)
+                                .orElseThrow(() -> new IllegalStateException("Unexpected refresh token format"));
+                return RefreshToken.builder()
+                                .authUser(user)
+                                .selector(split.selector())
+                                .verifierHash(split.verifierHash())
+                                .deviceId(deviceId)
+                                .ipAddress(ipAddress)
+                                .expiresAt(LocalDateTime.now().plusSeconds(jwtUtil.getRefreshExpirationMs() / 1000))
+                                .revoked(false)
+                                .build();
+        }
+
+        // Los tokens del formato anterior se buscan por la columna token hasta que expiren
+        private Optional<RefreshToken> findWithUserAndRoles(String value) {
+                if (!SplitRefreshToken.isSplitFormat(value)) {
+                        return refreshTokenRepository.findWithUserAndRolesByToken(value);
+                }
+                return SplitRefreshToken.parse(value).flatMap(split -> refreshTokenRepository
+                                .findWithUserAndRolesBySelector(split.selector())
+                                .filter(token -> split.matches(token.getVerifierHash())));
+        }
+
+        private Optional<RefreshToken> findToken(String value) {
+                if (!SplitRefreshToken.isSplitFormat(value)) {
+                        return refreshTokenRepository.findByToken(value);
+                }
+                return SplitRefreshToken.parse(value).flatMap(split -> refreshTokenRepository
+                                .findBySelector(split.selector())
+                                .filter(token -> split.matches(token.getVerifierHash())));
+        }
+
+        /**
+         * @return el motivo por el que no se puede rotar el refresh token, o null si es válido.
+         */
+        private static Outcome rejection(RefreshToken token, String deviceId) {
+                if (token == null) {
+                        return Outcome.INVALID;
+                }
+                if (!token.getExpiresAt().isAfter(LocalDateTime.now())) {
+                        return Outcome.EXPIRED;
+                }
+                if (!deviceId.equals(token.getDeviceId())) {
+                        return Outcome.DEVICE_MISMATCH;
+                }
+                // Al final: solo un token revocado del mismo dispositivo puede entrar por la ventana de gracia
+                if (token.getRevoked()) {
+                        return Outcome.REVOKED;
+                }
+                return null;
         }
 
 }
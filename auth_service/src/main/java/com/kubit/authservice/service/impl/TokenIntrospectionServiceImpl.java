@@ -0,0 +1,94 @@
+package com.kubit.authservice.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.kubit.authservice.domain.entity.TokenIntrospection;
+import com.kubit.authservice.service.TokenIntrospectionService;
+import com.kubit.authservice.util.VerifiedToken;
+import com.kubit.authservice.util.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+@Service
+public class TokenIntrospectionServiceImpl implements TokenIntrospectionService {
+        private final VerifiedTokenCache verifiedTokenCache;
+        private final Executor executor;
+        private final int maxBatchSize;
+        private final int chunkSize;
+        private final Timer batchTimer;
+        private final DistributionSummary batchSize;
+
+        public TokenIntrospectionServiceImpl(VerifiedTokenCache verifiedTokenCache,
+                        @Qualifier("introspectionExecutor") Executor executor,
+                        ObjectProvider<MeterRegistry> meterRegistry,
+                        @Value("${auth.introspect.maxBatchSize:100}") int maxBatchSize,
+                        @Value("${auth.introspect.chunkSize:16}") int chunkSize) {
+                this.verifiedTokenCache = verifiedTokenCache;
+                this.executor = executor;
+                this.maxBatchSize = maxBatchSize;
+                this.chunkSize = Math.max(1, chunkSize);
+                MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+                this.batchTimer = Timer.builder("auth.introspect.batch")
+                                .description("Latencia por lote de introspección")
+                                .publishPercentileHistogram()
+                                .register(registry);
+                this.batchSize = DistributionSummary.builder("auth.introspect.batch.size")
+                                .description("Tokens por lote de introspección")
+                                .register(registry);
+        }
+
+        @Override
+        public List<TokenIntrospection> introspect(List<String> tokens) {
+                if (tokens == null || tokens.isEmpty()) {
+                        return List.of();
+                }
+                if (tokens.size() > maxBatchSize) {
+                        throw new IllegalArgumentException("Too many tokens, max " + maxBatchSize);
+                }
+                batchSize.record(tokens.size());
+                return batchTimer.record(() -> introspectChunks(tokens));
+        }
+
+        private List<TokenIntrospection> introspectChunks(List<String> tokens) {
+                TokenIntrospection[] results = new TokenIntrospection[tokens.size()];
+                // Trozos de chunkSize tokens al pool; el primero lo procesa el hilo actual
+                List<CompletableFuture<Void>> pending = new ArrayList<>();
+                for (int from = chunkSize; from < tokens.size(); from += chunkSize) {
+                        int start = from;
+                        int end = Math.min(from + chunkSize, tokens.size());
+                        pending.add(CompletableFuture.runAsync(() -> fill(tokens, results, start, end), executor));
+                }
+                fill(tokens, results, 0, Math.min(chunkSize, tokens.size()));
+                CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+                return Arrays.asList(results);
+        }
+
+        private void fill(List<String> tokens, TokenIntrospection[] results, int start, int end) {
+                for (int i = start; i < end; i++) {
+                        results[i] = verifiedTokenCache.verify(tokens.get(i))
+                                        .map(TokenIntrospectionServiceImpl::toIntrospection)
+                                        .orElse(TokenIntrospection.inactive());
+                }
+        }
+
+        private static TokenIntrospection toIntrospection(VerifiedToken verified) {
+                return TokenIntrospection.builder()
+                                .active(true)
+                                .sub(verified.subject())
+                                .roles(verified.roles())
+                                .exp(verified.expiresAt() != null ? verified.expiresAt().getEpochSecond() : null)
+                                .build();
+        }
+}
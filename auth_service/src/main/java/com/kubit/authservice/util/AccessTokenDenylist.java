@@ -0,0 +1,292 @@
+package com.kubit.authservice.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Lista de access tokens revocados antes de su expiración (logout / logout-all).
+ * <ul>
+ * <li>Por {@code jti}: revoca un token concreto hasta su {@code exp}.</li>
+ * <li>Por usuario: revoca todo token del subject emitido hasta el momento del logout-all; la entrada vive
+ * lo que dura un access token ({@code jwt.expirationMs}). El corte se guarda en milisegundos pero {@code iat} va
+ * en segundos, así que los tokens nuevos del usuario se emiten con {@link #minimumIssuedAt(String)}: el primer
+ * segundo posterior al corte.</li>
+ * </ul>
+ * Ambas consultas son O(1) y las entradas se descartan al pasar su expiración, así que la memoria queda
+ * acotada por los tokens vivos. Si {@code jwt.denylist.file} está definido, cada revocación se agrega a un
+ * archivo mapeado en memoria de registros fijos que se relee al arrancar (sin consultar la base de datos).
+ */
+@Component
+public class AccessTokenDenylist {
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenDenylist.class);
+
+    // Formato del archivo: header de 16 bytes (magic, versión, registros usados, reservado) + registros de 32 bytes.
+    // Versión 2: el corte por usuario en milisegundos (en la 1 eran segundos)
+    private static final int MAGIC = 0x4A444C31; // "JDL1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+    private static final byte TYPE_JTI = 1;
+    private static final byte TYPE_SUBJECT = 2;
+
+    private record SubjectCutoff(long cutoffEpochMilli, long expiresEpochSecond) { }
+
+    private final Map<UUID, Long> revokedJtis = new ConcurrentHashMap<>();
+    private final Map<String, SubjectCutoff> subjectCutoffs = new ConcurrentHashMap<>();
+    private final long jwtExpirationSeconds;
+    private final int capacity;
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private final FileChannel channel;
+    private final MappedByteBuffer file;
+    private int usedRecords;
+
+    public AccessTokenDenylist(
+        @Value("${jwt.denylist.file:}") String filePath,
+        @Value("${jwt.denylist.capacity:100000}") int capacity,
+        @Value("${jwt.expirationMs}") long jwtExpirationMs
+    ) {
+        this.jwtExpirationSeconds = Math.max(1, jwtExpirationMs / 1000);
+        this.capacity = capacity;
+        if (!StringUtils.hasText(filePath)) {
+            this.channel = null;
+            this.file = null;
+            return;
+        }
+        try {
+            Path path = Path.of(filePath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            this.file = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open jwt.denylist.file " + filePath, e);
+        }
+        load();
+    }
+
+    /**
+     * Lista solo en memoria, sin archivo.
+     */
+    public static AccessTokenDenylist inMemory(long jwtExpirationMs) {
+        return new AccessTokenDenylist(null, 0, jwtExpirationMs);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        long now = Instant.now().getEpochSecond();
+        UUID jti = parseJti(token.jti());
+        if (jti != null) {
+            Long expires = revokedJtis.get(jti);
+            if (expires != null && expires > now) {
+                return true;
+            }
+        }
+        SubjectCutoff cutoff = token.subject() != null ? subjectCutoffs.get(token.subject()) : null;
+        if (cutoff != null && cutoff.expiresEpochSecond() > now) {
+            // Sin iat no se puede saber si es anterior al logout-all: se trata como revocado. Un iat en el mismo
+            // segundo que el corte puede ser anterior (iat truncado), así que cuenta como revocado
+            return token.issuedAt() == null || token.issuedAt().toEpochMilli() <= cutoff.cutoffEpochMilli();
+        }
+        return false;
+    }
+
+    /**
+     * Revoca un access token concreto hasta su expiración.
+     */
+    public void revoke(VerifiedToken token) {
+        UUID jti = parseJti(token.jti());
+        if (jti == null || token.expiresAt() == null) {
+            return;
+        }
+        long expires = token.expiresAt().getEpochSecond();
+        if (expires <= Instant.now().getEpochSecond()) {
+            return;
+        }
+        revokedJtis.merge(jti, expires, Math::max);
+        append(TYPE_JTI, jti.getMostSignificantBits(), jti.getLeastSignificantBits(), expires);
+    }
+
+    /**
+     * Revoca todos los access tokens del usuario emitidos hasta ahora.
+     */
+    public void revokeAllForSubject(String subject) {
+        long nowMs = System.currentTimeMillis();
+        SubjectCutoff cutoff = new SubjectCutoff(nowMs, nowMs / 1000 + 1 + jwtExpirationSeconds);
+        subjectCutoffs.merge(subject, cutoff,
+            (a, b) -> a.cutoffEpochMilli() >= b.cutoffEpochMilli() ? a : b);
+        try {
+            append(TYPE_SUBJECT, Long.parseLong(subject), nowMs, cutoff.expiresEpochSecond());
+        } catch (NumberFormatException e) {
+            log.debug("Subject no numérico {}, la revocación no se persiste", subject);
+        }
+    }
+
+    /**
+     * @return el {@code iat} mínimo (segundo entero) que no queda revocado por un logout-all del usuario, o null si
+     * no hay corte vigente. Un token emitido en el mismo segundo que el logout-all usa este iat (hasta 1 s adelante).
+     */
+    public Instant minimumIssuedAt(String subject) {
+        SubjectCutoff cutoff = subject != null ? subjectCutoffs.get(subject) : null;
+        if (cutoff == null || cutoff.expiresEpochSecond() <= Instant.now().getEpochSecond()) {
+            return null;
+        }
+        return Instant.ofEpochSecond(cutoff.cutoffEpochMilli() / 1000 + 1);
+    }
+
+    public int size() {
+        return revokedJtis.size() + subjectCutoffs.size();
+    }
+
+    /**
+     * Descarta entradas cuyos tokens ya expiraron.
+     */
+    @Scheduled(fixedDelayString = "${jwt.denylist.purgeIntervalMs:60000}")
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        revokedJtis.values().removeIf(expires -> expires <= now);
+        subjectCutoffs.values().removeIf(cutoff -> cutoff.expiresEpochSecond() <= now);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        fileLock.lock();
+        try {
+            file.force();
+            channel.close();
+        } catch (IOException e) {
+            log.warn("No se pudo cerrar jwt.denylist.file: {}", e.getMessage());
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private void load() {
+        int version = file.getInt(4);
+        if (file.getInt(0) != MAGIC || (version != VERSION && version != 1)) {
+            writeHeader(0);
+            return;
+        }
+        int count = Math.min(file.getInt(8), capacity);
+        long now = Instant.now().getEpochSecond();
+        for (int i = 0; i < count; i++) {
+            int offset = HEADER_BYTES + i * RECORD_BYTES;
+            byte type = file.get(offset);
+            long a = file.getLong(offset + 8);
+            long b = file.getLong(offset + 16);
+            long expires = file.getLong(offset + 24);
+            if (expires <= now) {
+                continue;
+            }
+            if (type == TYPE_JTI) {
+                revokedJtis.merge(new UUID(a, b), expires, Math::max);
+            } else if (type == TYPE_SUBJECT) {
+                long cutoffMs = version == 1 ? b * 1000 + 999 : b;
+                subjectCutoffs.merge(Long.toString(a), new SubjectCutoff(cutoffMs, expires),
+                    (x, y) -> x.cutoffEpochMilli() >= y.cutoffEpochMilli() ? x : y);
+            }
+        }
+        // Reescribe solo lo vigente para no arrastrar registros expirados
+        compact();
+        log.info("Denylist de access tokens cargada: {} entradas vigentes", size());
+    }
+
+    private void append(byte type, long a, long b, long expires) {
+        if (file == null) {
+            return;
+        }
+        fileLock.lock();
+        try {
+            if (usedRecords >= capacity) {
+                purgeExpired();
+                compact();
+                if (usedRecords >= capacity) {
+                    log.warn("jwt.denylist.file lleno ({} registros); la revocación solo queda en memoria", capacity);
+                    return;
+                }
+            }
+            writeRecord(usedRecords, type, a, b, expires);
+            // El contador se actualiza después del registro: un corte a medias deja el registro fuera
+            writeHeader(usedRecords + 1);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private void compact() {
+        fileLock.lock();
+        try {
+            int index = 0;
+            for (Map.Entry<UUID, Long> entry : revokedJtis.entrySet()) {
+                if (index >= capacity) {
+                    break;
+                }
+                UUID jti = entry.getKey();
+                writeRecord(index++, TYPE_JTI, jti.getMostSignificantBits(), jti.getLeastSignificantBits(),
+                    entry.getValue());
+            }
+            for (Map.Entry<String, SubjectCutoff> entry : subjectCutoffs.entrySet()) {
+                if (index >= capacity) {
+                    break;
+                }
+                SubjectCutoff cutoff = entry.getValue();
+                try {
+                    writeRecord(index++, TYPE_SUBJECT, Long.parseLong(entry.getKey()), cutoff.cutoffEpochMilli(),
+                        cutoff.expiresEpochSecond());
+                } catch (NumberFormatException e) {
+                    index--;
+                }
+            }
+            writeHeader(index);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private void writeRecord(int index, byte type, long a, long b, long expires) {
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        file.put(offset, type);
+        file.putLong(offset + 8, a);
+        file.putLong(offset + 16, b);
+        file.putLong(offset + 24, expires);
+    }
+
+    private void writeHeader(int count) {
+        file.putInt(0, MAGIC);
+        file.putInt(4, VERSION);
+        file.putInt(8, count);
+        usedRecords = count;
+    }
+
+    private static UUID parseJti(String jti) {
+        if (jti == null || jti.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(jti);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.kubit.authservice.util;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas de {@code AuthService}, pensadas para separar en producción bcrypt, MySQL y firma de JWT.
+ * <ul>
+ * <li>{@code auth.operation} (tag {@code method}): latencia por método con histograma de percentiles.</li>
+ * <li>{@code auth.operation.phase} (tag {@code phase}): lectura del usuario, password, revocación, mint, persist y
+ * audit dentro de cada método. Las mismas mediciones alimentan {@link ServerTimingRecorder}.</li>
+ * <li>{@code auth.operation.outcome} (tags {@code method}, {@code outcome}): resultado de cada llamada.</li>
+ * </ul>
+ * Todos los tags salen de enums, así que la cardinalidad es fija; los medidores se crean al arrancar.
+ */
+@Component
+public class AuthMetrics {
+
+    public enum Operation {
+        REGISTER("register"),
+        LOGIN("login"),
+        REFRESH("refreshToken"),
+        LOGOUT("logout"),
+        LOGOUT_ALL("logoutAllForUser"),
+        VALIDATE("validateJwt");
+
+        private final String method;
+
+        Operation(String method) {
+            this.method = method;
+        }
+    }
+
+    /**
+     * Fases en el orden en que ocurren; {@code serverTimingName} es el nombre en el header {@code Server-Timing}.
+     */
+    public enum Phase {
+        USER_LOOKUP("db-user"),
+        PASSWORD("bcrypt"),
+        REVOKE("revoke"),
+        MINT("mint"),
+        PERSIST("persist"),
+        AUDIT("audit");
+
+        private final String serverTimingName;
+
+        Phase(String serverTimingName) {
+            this.serverTimingName = serverTimingName;
+        }
+
+        public String serverTimingName() {
+            return serverTimingName;
+        }
+    }
+
+    /**
+     * {@code GRACE}: refresh concurrente que recibió el par emitido por la otra rotación.
+     */
+    public enum Outcome { SUCCESS, GRACE, BAD_CREDENTIALS, EXPIRED, REVOKED, DEVICE_MISMATCH, INVALID, ERROR }
+
+    private final MeterRegistry registry;
+    private final ServerTimingRecorder serverTiming;
+    private final Map<Operation, Timer> operationTimers = new EnumMap<>(Operation.class);
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<Operation, Map<Outcome, Counter>> outcomes = new EnumMap<>(Operation.class);
+
+    @Autowired
+    public AuthMetrics(ObjectProvider<MeterRegistry> meterRegistry, ServerTimingRecorder serverTiming) {
+        this(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), serverTiming);
+    }
+
+    public AuthMetrics(MeterRegistry registry) {
+        this(registry, ServerTimingRecorder.disabled());
+    }
+
+    public AuthMetrics(MeterRegistry registry, ServerTimingRecorder serverTiming) {
+        this.registry = registry;
+        this.serverTiming = serverTiming;
+        for (Operation operation : Operation.values()) {
+            operationTimers.put(operation, Timer.builder("auth.operation")
+                    .description("Latencia de cada método de AuthService")
+                    .tag("method", operation.method)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            Map<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                counters.put(outcome, Counter.builder("auth.operation.outcome")
+                        .description("Llamadas a AuthService por resultado")
+                        .tag("method", operation.method)
+                        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                        .register(registry));
+            }
+            outcomes.put(operation, counters);
+        }
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("auth.operation.phase")
+                    .description("Latencia de cada fase dentro de AuthService")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Cierra la medición iniciada con {@link #start()} y cuenta el resultado.
+     */
+    public void stop(Timer.Sample sample, Operation operation, Outcome outcome) {
+        sample.stop(operationTimers.get(operation));
+        outcomes.get(operation).get(outcome).increment();
+    }
+
+    public <T> T phase(Phase phase, Supplier<T> body) {
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void phase(Phase phase, Runnable body) {
+        long start = System.nanoTime();
+        try {
+            body.run();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    private void record(Phase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+        serverTiming.record(phase, nanos);
+    }
+}
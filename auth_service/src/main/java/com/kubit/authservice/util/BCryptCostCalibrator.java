@@ -0,0 +1,50 @@
+package com.kubit.authservice.util;
+
+import java.time.Duration;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Elige el costo de bcrypt para que una verificación tarde lo más cerca posible de un objetivo en el CPU
+ * actual. Cada punto de costo duplica el trabajo, así que basta medir un costo barato y extrapolar; luego
+ * se mide el costo elegido una vez para corregir un punto si la extrapolación se desvió.
+ */
+public final class BCryptCostCalibrator {
+    private static final int PROBE_COST = 8;
+    private static final int PROBE_SAMPLES = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * @return el costo en {@code [minCost, maxCost]} cuyo tiempo de hash se acerca más a {@code target}.
+     */
+    public static int calibrate(Duration target, int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(PROBE_COST);
+        // El mínimo de varias muestras descarta JIT y ruido del scheduler
+        long probeNanos = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_SAMPLES; i++) {
+            probeNanos = Math.min(probeNanos, measure(salt));
+        }
+        double ratio = (double) target.toNanos() / Math.max(1, probeNanos);
+        int cost = clamp(PROBE_COST + (int) Math.round(Math.log(ratio) / Math.log(2)), minCost, maxCost);
+
+        long actualNanos = measure(BCrypt.gensalt(cost));
+        if (actualNanos > target.toNanos() * 3 / 2 && cost > minCost) {
+            cost--;
+        } else if (actualNanos * 3 / 2 < target.toNanos() && cost < maxCost) {
+            cost++;
+        }
+        return cost;
+    }
+
+    private static long measure(String salt) {
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration-password", salt);
+        return System.nanoTime() - start;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,48 @@
+package com.kubit.authservice.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt que pide rehash cuando el hash guardado tiene un costo menor al de este nodo y, si el costo está fijado
+ * para toda la flota ({@code rehashHigherCost}), también cuando es mayor: {@link BCryptPasswordEncoder} solo lo
+ * pide en el primer caso, así que bajar el costo de la flota nunca abarataría los hashes existentes.
+ * <p>
+ * Con el costo calibrado por nodo no se baja nunca: nodos con costos distintos reescribirían el mismo hash en
+ * cada login. Así los hashes solo suben hasta el costo más alto de la flota.
+ */
+public class CostAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Pattern BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+    private final boolean rehashHigherCost;
+
+    /**
+     * Solo pide rehash de hashes con costo menor.
+     */
+    public CostAwareBCryptPasswordEncoder(int strength) {
+        this(strength, false);
+    }
+
+    public CostAwareBCryptPasswordEncoder(int strength, boolean rehashHigherCost) {
+        super(strength);
+        this.strength = strength;
+        this.rehashHigherCost = rehashHigherCost;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    protected boolean upgradeEncodingNonNull(String encodedPassword) {
+        Matcher matcher = BCRYPT.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        int storedCost = Integer.parseInt(matcher.group(1));
+        return storedCost < strength || (rehashHigherCost && storedCost > strength);
+    }
+}
@@ -0,0 +1,582 @@
+package com.kubit.authservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.Role;
+
+/**
+ * Codificador/decodificador HS256 especializado en nuestro set fijo de claims
+ * (sub, email, roles, status, jti, iat, exp). Reutiliza el {@link Mac} ya inicializado y los buffers desde un pool
+ * acotado, escribe el JSON directo en bytes y lo parsea sin construir un mapa genérico.
+ * <p>
+ * El pool no es por hilo: con virtual threads cada request corre en un hilo nuevo y un {@code ThreadLocal} pagaría
+ * {@code Mac.getInstance} + {@code init} y los buffers en cada llamada. Si el pool está vacío se crea un juego más y
+ * al devolverlo se descarta si el pool ya está lleno ({@link ArrayBlockingQueue} usa {@code ReentrantLock}, no fija
+ * el carrier).
+ * <p>
+ * Produce JWS estándar ({@code {"alg":"HS256"}}) que jjwt acepta, y acepta los que genera jjwt. Si un token
+ * trae otro header o un payload con estructuras que no conoce, responde {@link Decoded#UNSUPPORTED} y
+ * {@link JwtUtil} lo delega a jjwt.
+ */
+final class Hs256JwtCodec {
+    /**
+     * Resultado de {@link #decode(String)}: token válido, inválido (firma/expiración) o formato no soportado.
+     */
+    record Decoded(VerifiedToken token, boolean supported) {
+        static final Decoded INVALID = new Decoded(null, true);
+        static final Decoded UNSUPPORTED = new Decoded(null, false);
+    }
+
+    private static final byte[] HEADER_JSON = "{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+        .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64URL_INVERSE = new byte[128];
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final int SIGNATURE_B64_LENGTH = 43;
+    private static final String HEADER_B64;
+
+    static {
+        java.util.Arrays.fill(BASE64URL_INVERSE, (byte) -1);
+        for (int i = 0; i < BASE64URL.length; i++) {
+            BASE64URL_INVERSE[BASE64URL[i]] = (byte) i;
+        }
+        byte[] header = new byte[base64Length(HEADER_JSON.length)];
+        int len = base64UrlEncode(HEADER_JSON, 0, HEADER_JSON.length, header, 0);
+        HEADER_B64 = new String(header, 0, len, StandardCharsets.US_ASCII);
+    }
+
+    private final SecretKey key;
+    // Un Buffers por operación en curso; el tamaño acota lo que queda retenido, no la concurrencia
+    private final ArrayBlockingQueue<Buffers> pool;
+
+    Hs256JwtCodec(SecretKey key) {
+        this.key = key;
+        this.pool = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+        pool.offer(new Buffers(newMac())); // falla al arrancar si la llave no sirve para HmacSHA256
+    }
+
+    String encode(AuthUser user, String jti, long issuedAtSeconds, long expiresAtSeconds) {
+        Buffers buf = acquire();
+        try {
+            return encode(buf, user, jti, issuedAtSeconds, expiresAtSeconds);
+        } finally {
+            pool.offer(buf);
+        }
+    }
+
+    Decoded decode(String token) {
+        int firstDot = token.indexOf('.');
+        if (firstDot != HEADER_B64.length() || !token.startsWith(HEADER_B64)) {
+            return Decoded.UNSUPPORTED;
+        }
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0
+                || token.length() - secondDot - 1 != SIGNATURE_B64_LENGTH) {
+            return Decoded.INVALID;
+        }
+        Buffers buf = acquire();
+        try {
+            return decode(buf, token, firstDot, secondDot);
+        } finally {
+            pool.offer(buf);
+        }
+    }
+
+    private Buffers acquire() {
+        Buffers buf = pool.poll();
+        return buf != null ? buf : new Buffers(newMac());
+    }
+
+    private String encode(Buffers buf, AuthUser user, String jti, long issuedAtSeconds, long expiresAtSeconds) {
+        ByteWriter json = buf.json.reset();
+        json.ascii("{\"email\":").string(user.getEmail())
+            .ascii(",\"roles\":[");
+        boolean first = true;
+        for (Role role : user.getRoles()) {
+            if (!first) {
+                json.put((byte) ',');
+            }
+            json.string(role.getName());
+            first = false;
+        }
+        json.ascii("],\"status\":").string(user.getStatus().name())
+            .ascii(",\"sub\":").string(user.getId().toString())
+            .ascii(",\"jti\":").string(jti)
+            .ascii(",\"iat\":").number(issuedAtSeconds)
+            .ascii(",\"exp\":").number(expiresAtSeconds)
+            .put((byte) '}');
+
+        ByteWriter out = buf.out.reset();
+        out.ascii(HEADER_B64).put((byte) '.');
+        out.ensure(base64Length(json.length) + 1 + SIGNATURE_B64_LENGTH);
+        out.length = base64UrlEncode(json.bytes, 0, json.length, out.bytes, out.length);
+
+        Mac hmac = buf.mac;
+        hmac.update(out.bytes, 0, out.length);
+        byte[] signature = buf.signature;
+        try {
+            hmac.doFinal(signature, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC failure", e);
+        }
+        out.put((byte) '.');
+        out.length = base64UrlEncode(signature, 0, SIGNATURE_LENGTH, out.bytes, out.length);
+        return new String(out.bytes, 0, out.length, StandardCharsets.US_ASCII);
+    }
+
+    private Decoded decode(Buffers buf, String token, int firstDot, int secondDot) {
+        // Firma: HMAC sobre "header.payload" tal cual viene (ASCII)
+        ByteWriter signed = buf.out.reset();
+        signed.ensure(secondDot);
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c > 127) {
+                return Decoded.INVALID;
+            }
+            signed.bytes[i] = (byte) c;
+        }
+        signed.length = secondDot;
+        Mac hmac = buf.mac;
+        hmac.update(signed.bytes, 0, signed.length);
+        byte[] expected = buf.signature;
+        try {
+            hmac.doFinal(expected, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC failure", e);
+        }
+        byte[] actual = buf.actualSignature;
+        if (base64UrlDecode(token, secondDot + 1, token.length(), actual, 0) != SIGNATURE_LENGTH
+                || !constantTimeEquals(expected, actual, SIGNATURE_LENGTH)) {
+            return Decoded.INVALID;
+        }
+
+        ByteWriter payload = buf.json.reset();
+        payload.ensure((secondDot - firstDot) * 3 / 4 + 3);
+        int payloadLength = base64UrlDecode(token, firstDot + 1, secondDot, payload.bytes, 0);
+        if (payloadLength < 0) {
+            return Decoded.INVALID;
+        }
+        return new PayloadParser(payload.bytes, payloadLength).parse();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance("HmacSHA256");
+            m.init(key);
+            return m;
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("Invalid HS256 key", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static boolean constantTimeEquals(byte[] a, byte[] b, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+
+    private static int base64Length(int bytes) {
+        return (bytes * 4 + 2) / 3;
+    }
+
+    private static int base64UrlEncode(byte[] src, int from, int to, byte[] dst, int offset) {
+        int i = from;
+        int o = offset;
+        while (to - i >= 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[o++] = BASE64URL[bits >>> 18];
+            dst[o++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[o++] = BASE64URL[(bits >>> 6) & 0x3f];
+            dst[o++] = BASE64URL[bits & 0x3f];
+            i += 3;
+        }
+        int remaining = to - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            dst[o++] = BASE64URL[bits >>> 18];
+            dst[o++] = BASE64URL[(bits >>> 12) & 0x3f];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            dst[o++] = BASE64URL[bits >>> 18];
+            dst[o++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[o++] = BASE64URL[(bits >>> 6) & 0x3f];
+        }
+        return o;
+    }
+
+    /**
+     * @return bytes escritos, o -1 si hay caracteres fuera del alfabeto base64url.
+     */
+    private static int base64UrlDecode(String src, int from, int to, byte[] dst, int offset) {
+        int o = offset;
+        int bits = 0;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            int v = c < 128 ? BASE64URL_INVERSE[c] : -1;
+            if (v < 0) {
+                return -1;
+            }
+            bits = bits << 6 | v;
+            if (++count == 4) {
+                dst[o++] = (byte) (bits >> 16);
+                dst[o++] = (byte) (bits >> 8);
+                dst[o++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 1) {
+            return -1;
+        }
+        if (count == 2) {
+            dst[o++] = (byte) (bits >> 4);
+        } else if (count == 3) {
+            dst[o++] = (byte) (bits >> 10);
+            dst[o++] = (byte) (bits >> 2);
+        }
+        return o - offset;
+    }
+
+    private static final class Buffers {
+        final Mac mac;
+        final ByteWriter json = new ByteWriter(512);
+        final ByteWriter out = new ByteWriter(1024);
+        final byte[] signature = new byte[SIGNATURE_LENGTH];
+        final byte[] actualSignature = new byte[SIGNATURE_LENGTH + 2];
+
+        Buffers(Mac mac) {
+            this.mac = mac;
+        }
+    }
+
+    private static final class ByteWriter {
+        byte[] bytes;
+        int length;
+
+        ByteWriter(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        ByteWriter reset() {
+            length = 0;
+            return this;
+        }
+
+        void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = java.util.Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        ByteWriter put(byte b) {
+            ensure(1);
+            bytes[length++] = b;
+            return this;
+        }
+
+        ByteWriter ascii(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[length++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        ByteWriter number(long value) {
+            return ascii(Long.toString(value));
+        }
+
+        ByteWriter string(String s) {
+            if (s == null) {
+                return ascii("null");
+            }
+            put((byte) '"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\').put((byte) c);
+                } else if (c < 0x20) {
+                    ascii(String.format("\\u%04x", (int) c));
+                } else if (c < 0x80) {
+                    put((byte) c);
+                } else {
+                    // Caracteres no ASCII: se codifican en UTF-8 (incluye pares sustitutos)
+                    int end = i + 1;
+                    if (Character.isHighSurrogate(c) && end < s.length()) {
+                        end++;
+                    }
+                    byte[] utf8 = s.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                    ensure(utf8.length);
+                    System.arraycopy(utf8, 0, bytes, length, utf8.length);
+                    length += utf8.length;
+                    i = end - 1;
+                }
+            }
+            return put((byte) '"');
+        }
+    }
+
+    /**
+     * Parser JSON mínimo para el payload: objeto plano con strings, números enteros, booleanos, null y
+     * arreglos de strings. Cualquier otra estructura se considera no soportada.
+     */
+    private static final class PayloadParser {
+        private final byte[] json;
+        private final int end;
+        private int pos;
+        private boolean unsupported;
+
+        PayloadParser(byte[] json, int length) {
+            this.json = json;
+            this.end = length;
+        }
+
+        Decoded parse() {
+            String subject = null;
+            String email = null;
+            String status = null;
+            List<String> roles = null;
+            String jti = null;
+            long iat = Long.MIN_VALUE;
+            long exp = Long.MIN_VALUE;
+            long nbf = Long.MIN_VALUE;
+            skipWhitespace();
+            if (!consume('{')) {
+                return Decoded.UNSUPPORTED;
+            }
+            skipWhitespace();
+            if (!consume('}')) {
+                do {
+                    skipWhitespace();
+                    String name = readString();
+                    skipWhitespace();
+                    if (name == null || !consume(':')) {
+                        return Decoded.UNSUPPORTED;
+                    }
+                    skipWhitespace();
+                    switch (name) {
+                        case "sub" -> subject = readString();
+                        case "email" -> email = readString();
+                        case "status" -> status = readString();
+                        case "roles" -> roles = readStringArray();
+                        case "jti" -> jti = readString();
+                        case "iat" -> iat = readLong();
+                        case "exp" -> exp = readLong();
+                        case "nbf" -> nbf = readLong();
+                        default -> skipValue();
+                    }
+                    if (unsupported) {
+                        return Decoded.UNSUPPORTED;
+                    }
+                    skipWhitespace();
+                } while (consume(','));
+                if (!consume('}')) {
+                    return Decoded.UNSUPPORTED;
+                }
+            }
+            // Contenido después del objeto: no se acepta aquí; jjwt decide (rechaza salvo que termine en '}'), así
+            // que ambos caminos dan el mismo resultado
+            skipWhitespace();
+            if (pos != end) {
+                return Decoded.UNSUPPORTED;
+            }
+            long nowMillis = System.currentTimeMillis();
+            // Mismas reglas que jjwt sin tolerancia de reloj: expira cuando now > exp; no válido antes de nbf
+            if (exp != Long.MIN_VALUE && nowMillis > exp * 1000) {
+                return Decoded.INVALID;
+            }
+            if (nbf != Long.MIN_VALUE && nowMillis < nbf * 1000) {
+                return Decoded.INVALID;
+            }
+            return new Decoded(new VerifiedToken(subject, email, roles, status, jti,
+                iat != Long.MIN_VALUE ? Instant.ofEpochSecond(iat) : null,
+                exp != Long.MIN_VALUE ? Instant.ofEpochSecond(exp) : null), true);
+        }
+
+        private void skipWhitespace() {
+            while (pos < end) {
+                byte b = json[pos];
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private boolean consume(char c) {
+            if (pos < end && json[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private String readString() {
+            if (consume('n')) {
+                return expectLiteral("ull") ? null : fail();
+            }
+            if (!consume('"')) {
+                return fail();
+            }
+            int start = pos;
+            while (pos < end && json[pos] != '"' && json[pos] != '\\') {
+                pos++;
+            }
+            if (pos < end && json[pos] == '"') {
+                return new String(json, start, pos++ - start, StandardCharsets.UTF_8);
+            }
+            // Con escapes: camino lento
+            StringBuilder sb = new StringBuilder(new String(json, start, pos - start, StandardCharsets.UTF_8));
+            int chunk = pos;
+            while (pos < end) {
+                byte b = json[pos];
+                if (b == '"') {
+                    sb.append(new String(json, chunk, pos - chunk, StandardCharsets.UTF_8));
+                    pos++;
+                    return sb.toString();
+                }
+                if (b == '\\') {
+                    sb.append(new String(json, chunk, pos - chunk, StandardCharsets.UTF_8));
+                    if (++pos >= end) {
+                        return fail();
+                    }
+                    byte e = json[pos++];
+                    switch (e) {
+                        case '"', '\\', '/' -> sb.append((char) e);
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'u' -> {
+                            if (pos + 4 > end) {
+                                return fail();
+                            }
+                            int code = 0;
+                            for (int i = 0; i < 4; i++) {
+                                int digit = Character.digit(json[pos++], 16);
+                                if (digit < 0) {
+                                    return fail();
+                                }
+                                code = code << 4 | digit;
+                            }
+                            sb.append((char) code);
+                        }
+                        default -> {
+                            return fail();
+                        }
+                    }
+                    chunk = pos;
+                } else {
+                    pos++;
+                }
+            }
+            return fail();
+        }
+
+        private List<String> readStringArray() {
+            if (consume('n')) {
+                return expectLiteral("ull") ? null : failList();
+            }
+            if (!consume('[')) {
+                return failList();
+            }
+            List<String> values = new ArrayList<>(4);
+            skipWhitespace();
+            if (consume(']')) {
+                return values;
+            }
+            do {
+                skipWhitespace();
+                if (pos >= end || json[pos] != '"') {
+                    return failList();
+                }
+                values.add(readString());
+                skipWhitespace();
+            } while (consume(','));
+            return consume(']') ? values : failList();
+        }
+
+        private long readLong() {
+            int start = pos;
+            boolean negative = consume('-');
+            long value = 0;
+            int digits = 0;
+            while (pos < end && json[pos] >= '0' && json[pos] <= '9') {
+                if (digits++ > 17) {
+                    unsupported = true;
+                    return 0;
+                }
+                value = value * 10 + (json[pos++] - '0');
+            }
+            if (digits == 0 || (pos < end && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E'))) {
+                pos = start;
+                unsupported = true;
+                return 0;
+            }
+            return negative ? -value : value;
+        }
+
+        private void skipValue() {
+            if (pos >= end) {
+                unsupported = true;
+                return;
+            }
+            byte b = json[pos];
+            if (b == '"') {
+                readString();
+            } else if (b == '[') {
+                readStringArray();
+            } else if (b == 't') {
+                pos++;
+                unsupported |= !expectLiteral("rue");
+            } else if (b == 'f') {
+                pos++;
+                unsupported |= !expectLiteral("alse");
+            } else if (b == 'n') {
+                pos++;
+                unsupported |= !expectLiteral("ull");
+            } else {
+                readLong();
+            }
+        }
+
+        private boolean expectLiteral(String rest) {
+            if (pos + rest.length() > end) {
+                return false;
+            }
+            for (int i = 0; i < rest.length(); i++) {
+                if (json[pos + i] != rest.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += rest.length();
+            return true;
+        }
+
+        private String fail() {
+            unsupported = true;
+            return null;
+        }
+
+        private List<String> failList() {
+            unsupported = true;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.kubit.authservice.util;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import javax.crypto.SecretKey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Llavero de firma de JWT.
+ * <ul>
+ * <li>{@code HS256} (default): firma con la llave HMAC de {@code jwt.secret}, como siempre.</li>
+ * <li>{@code RS256}: firma con la llave RSA activa y agrega el header {@code kid}. Las llaves se leen de
+ * {@code jwt.keys.dir} ({@code <kid>.pem} en PKCS#8; {@code <kid>.pub.pem} para llaves solo de
+ * verificación) y se recargan periódicamente, así que rotar es copiar la llave nueva y, cuando los
+ * tokens viejos expiren, borrar la anterior. Sin reinicio.</li>
+ * </ul>
+ * La llave activa es {@code jwt.keys.activeKid} o, si no se define, el kid mayor en orden lexicográfico
+ * (p. ej. {@code 2026-10}). El resto quedan en estado de retiro: verifican y se publican en el JWKS, pero no firman.
+ * <p>
+ * En RS256 los tokens HS256 solo se aceptan hasta {@code jwt.keys.acceptHs256Until}; sin esa fecha el secreto
+ * compartido deja de servir para emitir tokens válidos en cuanto se cambia de algoritmo. Con {@code jwt.keys.dir}
+ * configurado el llavero nunca cae a una llave efímera: cada nodo firmaría con la suya.
+ */
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    public enum KeyStatus { ACTIVE, RETIRING }
+
+    /**
+     * Llave RSA identificada por kid. {@code privateKey} es null en llaves solo de verificación.
+     */
+    public record RsaKey(String kid, PrivateKey privateKey, RSAPublicKey publicKey, KeyStatus status) { }
+
+    private record Snapshot(Map<String, RsaKey> byKid, RsaKey active) { }
+
+    private final SignatureAlgorithm algorithm;
+    private final SecretKey hmacKey;
+    private final Path keysDir;
+    private final String configuredActiveKid;
+    private final Instant hs256AcceptedUntil;
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), null);
+
+    @Autowired
+    public JwtKeyRing(
+        @Value("${jwt.secret}") String secret,
+        @Value("${jwt.algorithm:HS256}") String algorithm,
+        @Value("${jwt.keys.dir:}") String keysDir,
+        @Value("${jwt.keys.activeKid:}") String activeKid,
+        @Value("${jwt.keys.acceptHs256Until:}") String acceptHs256Until
+    ) {
+        this.hmacKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.algorithm = SignatureAlgorithm.forName(algorithm);
+        if (this.algorithm != SignatureAlgorithm.HS256 && this.algorithm != SignatureAlgorithm.RS256) {
+            throw new IllegalArgumentException("Unsupported jwt.algorithm: " + algorithm);
+        }
+        this.keysDir = StringUtils.hasText(keysDir) ? Path.of(keysDir) : null;
+        this.configuredActiveKid = StringUtils.hasText(activeKid) ? activeKid : null;
+        this.hs256AcceptedUntil = StringUtils.hasText(acceptHs256Until) ? Instant.parse(acceptHs256Until) : null;
+        if (this.algorithm == SignatureAlgorithm.RS256) {
+            reload();
+            if (snapshot.active() == null) {
+                throw new IllegalStateException("jwt.algorithm=RS256 sin llave privada válida en jwt.keys.dir " + keysDir);
+            }
+        }
+    }
+
+    /**
+     * Llavero sin ventana de migración HS256.
+     */
+    public JwtKeyRing(String secret, String algorithm, String keysDir, String activeKid) {
+        this(secret, algorithm, keysDir, activeKid, null);
+    }
+
+    /**
+     * Llavero solo HMAC, equivalente al comportamiento original de {@link JwtUtil}.
+     */
+    public static JwtKeyRing hmac(String secret) {
+        return new JwtKeyRing(secret, "HS256", null, null);
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public SecretKey getHmacKey() {
+        return hmacKey;
+    }
+
+    /**
+     * @return true si se aceptan tokens firmados con {@code jwt.secret}: siempre en HS256; en RS256 solo antes de
+     * {@code jwt.keys.acceptHs256Until}.
+     */
+    public boolean acceptsHs256() {
+        return algorithm == SignatureAlgorithm.HS256
+                || (hs256AcceptedUntil != null && Instant.now().isBefore(hs256AcceptedUntil));
+    }
+
+    /**
+     * @return la llave RSA con la que se firman los tokens nuevos, o null en modo HS256.
+     */
+    public RsaKey activeKey() {
+        return algorithm == SignatureAlgorithm.RS256 ? snapshot.active() : null;
+    }
+
+    public List<RsaKey> keys() {
+        return List.copyOf(snapshot.byKid().values());
+    }
+
+    /**
+     * Relee {@code jwt.keys.dir}. Si el directorio no tiene llaves válidas se conserva el llavero anterior (al
+     * arrancar, el constructor falla). Solo sin {@code jwt.keys.dir} se genera una llave efímera.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.reloadIntervalMs:60000}",
+               initialDelayString = "${jwt.keys.reloadIntervalMs:60000}")
+    public void reload() {
+        if (algorithm != SignatureAlgorithm.RS256) {
+            return;
+        }
+        if (keysDir == null) {
+            if (snapshot.active() == null) {
+                log.warn("jwt.algorithm=RS256 sin jwt.keys.dir; se genera una llave efímera (solo desarrollo)");
+                snapshot = build(generateEphemeral());
+            }
+            return;
+        }
+        Map<String, RsaKey> loaded = readKeysDir(keysDir);
+        if (loaded.isEmpty()) {
+            log.error("jwt.keys.dir {} sin llaves válidas; se conserva el llavero anterior", keysDir);
+            return;
+        }
+        Snapshot next = build(loaded);
+        if (next.active() == null) {
+            log.error("Ninguna llave privada disponible en {} para firmar; se conserva el llavero anterior", keysDir);
+            return;
+        }
+        if (!next.byKid().keySet().equals(snapshot.byKid().keySet())
+                || (snapshot.active() != null && !next.active().kid().equals(snapshot.active().kid()))) {
+            log.info("Llavero JWT recargado: activa={}, llaves={}", next.active().kid(), next.byKid().keySet());
+        }
+        snapshot = next;
+    }
+
+    /**
+     * Resuelve la llave de verificación según el header del token: HS256 usa {@code jwt.secret},
+     * RS256 busca la llave pública por {@code kid}.
+     */
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        SignatureAlgorithm alg = SignatureAlgorithm.forName(header.getAlgorithm());
+        if (alg == SignatureAlgorithm.HS256) {
+            if (!acceptsHs256()) {
+                throw new UnsupportedJwtException("HS256 tokens are no longer accepted");
+            }
+            return hmacKey;
+        }
+        if (alg == SignatureAlgorithm.RS256) {
+            RsaKey key = header.getKeyId() != null ? snapshot.byKid().get(header.getKeyId()) : null;
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown JWT key id: " + header.getKeyId());
+            }
+            return key.publicKey();
+        }
+        throw new UnsupportedJwtException("Unsupported JWT algorithm: " + alg);
+    }
+
+    /**
+     * @return las llaves públicas en formato JWK (RFC 7517) para {@code /.well-known/jwks.json}.
+     */
+    public List<Map<String, Object>> publicJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (RsaKey key : snapshot.byKid().values()) {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("kid", key.kid());
+            jwk.put("use", "sig");
+            jwk.put("alg", SignatureAlgorithm.RS256.getValue());
+            jwk.put("n", base64Url(key.publicKey().getModulus()));
+            jwk.put("e", base64Url(key.publicKey().getPublicExponent()));
+            jwks.add(jwk);
+        }
+        return jwks;
+    }
+
+    private Snapshot build(Map<String, RsaKey> keys) {
+        String activeKid = configuredActiveKid;
+        if (activeKid == null || keys.get(activeKid) == null || keys.get(activeKid).privateKey() == null) {
+            activeKid = keys.values().stream()
+                .filter(k -> k.privateKey() != null)
+                .map(RsaKey::kid)
+                .max(String::compareTo)
+                .orElse(null);
+        }
+        Map<String, RsaKey> byKid = new LinkedHashMap<>();
+        RsaKey active = null;
+        for (RsaKey key : keys.values()) {
+            KeyStatus status = key.kid().equals(activeKid) ? KeyStatus.ACTIVE : KeyStatus.RETIRING;
+            RsaKey withStatus = new RsaKey(key.kid(), key.privateKey(), key.publicKey(), status);
+            byKid.put(key.kid(), withStatus);
+            if (status == KeyStatus.ACTIVE) {
+                active = withStatus;
+            }
+        }
+        return new Snapshot(Collections.unmodifiableMap(byKid), active);
+    }
+
+    private static Map<String, RsaKey> readKeysDir(Path dir) {
+        Map<String, RsaKey> keys = new TreeMap<>();
+        if (!Files.isDirectory(dir)) {
+            log.warn("jwt.keys.dir {} no existe", dir);
+            return keys;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(f -> f.getFileName().toString().endsWith(".pem")).forEach(file -> {
+                try {
+                    RsaKey key = readPem(file);
+                    keys.merge(key.kid(), key, (a, b) -> a.privateKey() != null ? a : b);
+                } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+                    log.error("No se pudo leer la llave JWT {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.error("No se pudo listar jwt.keys.dir {}: {}", dir, e.getMessage());
+        }
+        return keys;
+    }
+
+    private static RsaKey readPem(Path file) throws IOException, GeneralSecurityException {
+        String name = file.getFileName().toString();
+        String kid = name.substring(0, name.length() - ".pem".length());
+        if (kid.endsWith(".pub")) {
+            kid = kid.substring(0, kid.length() - ".pub".length());
+        }
+        String pem = Files.readString(file, StandardCharsets.US_ASCII);
+        byte[] der = Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+        KeyFactory factory = KeyFactory.getInstance("RSA");
+        if (pem.contains("PUBLIC KEY")) {
+            RSAPublicKey publicKey = (RSAPublicKey) factory.generatePublic(new X509EncodedKeySpec(der));
+            return new RsaKey(kid, null, publicKey, KeyStatus.RETIRING);
+        }
+        RSAPrivateCrtKey privateKey = (RSAPrivateCrtKey) factory.generatePrivate(new PKCS8EncodedKeySpec(der));
+        RSAPublicKey publicKey = (RSAPublicKey) factory.generatePublic(
+            new RSAPublicKeySpec(privateKey.getModulus(), privateKey.getPublicExponent()));
+        return new RsaKey(kid, privateKey, publicKey, KeyStatus.RETIRING);
+    }
+
+    private static Map<String, RsaKey> generateEphemeral() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair pair = generator.generateKeyPair();
+            String kid = "ephemeral-" + Long.toString(System.currentTimeMillis(), 36);
+            return Map.of(kid, new RsaKey(kid, pair.getPrivate(), (RSAPublicKey) pair.getPublic(), KeyStatus.ACTIVE));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("RSA not available", e);
+        }
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // BigInteger agrega un byte 0 de signo que JWK no admite
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -1,61 +1,121 @@
 package com.kubit.authservice.util;
 import com.kubit.authservice.domain.entity.AuthUser;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import java.security.Key;
-import java.security.SecureRandom;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.time.Instant;
-import java.util.Base64;
 
 @Component
 public class JwtUtil {
-    private final Key key;
+    private final JwtKeyRing keyRing;
+    // El parser es inmutable y thread-safe: se construye una sola vez y se reutiliza en cada request
+    private final JwtParser parser;
+    // Codec HS256 de bajo costo para nuestro set fijo de claims; null = todo por jjwt (jwt.codec=jjwt)
+    private final Hs256JwtCodec fastCodec;
     private final long jwtExpirationMs;
     private final long refreshExpirationMs;
-    private final SecureRandom secureRandom = new SecureRandom();
+    // Refresh tokens y jti salen de DRBG repartidos en franjas, no de un SecureRandom global
+    private final SecureRandomPool random;
+    @Autowired
     public JwtUtil(
-        @Value("${jwt.secret}") String secret,
+        JwtKeyRing keyRing,
+        SecureRandomPool random,
         @Value("${jwt.expirationMs}") long jwtExpirationMs,
-        @Value("${jwt.refreshExpirationMs}") long refreshExpirationMs
+        @Value("${jwt.refreshExpirationMs}") long refreshExpirationMs,
+        @Value("${jwt.codec:fast}") String codec
     ) {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.keyRing = keyRing;
+        this.random = random;
+        // La llave de verificación se resuelve por token (alg + kid), así que la rotación no exige rehacer el parser
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(keyRing).build();
+        this.fastCodec = switch (codec) {
+            case "fast" -> new Hs256JwtCodec(keyRing.getHmacKey());
+            case "jjwt" -> null;
+            default -> throw new IllegalArgumentException("Unsupported jwt.codec: " + codec);
+        };
         this.jwtExpirationMs = jwtExpirationMs;
         this.refreshExpirationMs = refreshExpirationMs;
     }
+    public JwtUtil(JwtKeyRing keyRing, long jwtExpirationMs, long refreshExpirationMs, String codec) {
+        this(keyRing, new SecureRandomPool(0), jwtExpirationMs, refreshExpirationMs, codec);
+    }
+    public JwtUtil(JwtKeyRing keyRing, long jwtExpirationMs, long refreshExpirationMs) {
+        this(keyRing, jwtExpirationMs, refreshExpirationMs, "fast");
+    }
+    /**
+     * Firma HS256 con {@code secret}, sin llavero RSA.
+     */
+    public JwtUtil(String secret, long jwtExpirationMs, long refreshExpirationMs) {
+        this(JwtKeyRing.hmac(secret), jwtExpirationMs, refreshExpirationMs);
+    }
     // --- ACCESS TOKEN: JWT ---
     /**
      * Genera un JWT para el usuario dado.
      */
     public String generateToken(AuthUser user) {
+        return generateToken(user, null);
+    }
+    /**
+     * Genera un JWT cuyo {@code iat} no es anterior a {@code minIssuedAt} (p. ej. el primer segundo tras un
+     * logout-all, ver {@link AccessTokenDenylist#minimumIssuedAt(String)}); null = ahora.
+     */
+    public String generateToken(AuthUser user, Instant minIssuedAt) {
+        JwtKeyRing.RsaKey rsaKey = keyRing.activeKey();
+        long nowMs = System.currentTimeMillis();
+        long issuedAtMs = minIssuedAt != null ? Math.max(nowMs, minIssuedAt.toEpochMilli()) : nowMs;
+        if (fastCodec != null && rsaKey == null) {
+            // Mismo redondeo que jjwt: segundos epoch truncados
+            return fastCodec.encode(user, newJti(), issuedAtMs / 1000, (nowMs + jwtExpirationMs) / 1000);
+        }
         Map<String, Object> claims = new HashMap<>();
         claims.put("email", user.getEmail());
         // Se asume que getRoles() devuelve Set<Role> y Role tiene getName()
         claims.put("roles", user.getRoles().stream().map(r -> r.getName()).collect(Collectors.toList()));
         // AuthUserStatus es un enum, se toma su nombre como string
         claims.put("status", user.getStatus().name());
-        Instant now = Instant.now();
-        Instant expiry = now.plusMillis(jwtExpirationMs);
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
             .setClaims(claims)
             .setSubject(user.getId().toString())
-            .setIssuedAt(Date.from(now))
-            .setExpiration(Date.from(expiry))
-            .signWith(key, SignatureAlgorithm.HS256)
-            .compact();
+            .setId(newJti())
+            .setIssuedAt(new Date(issuedAtMs))
+            .setExpiration(new Date(nowMs + jwtExpirationMs));
+        if (rsaKey != null) {
+            return builder.setHeaderParam(JwsHeader.KEY_ID, rsaKey.kid())
+                .signWith(rsaKey.privateKey(), SignatureAlgorithm.RS256)
+                .compact();
+        }
+        return builder.signWith(keyRing.getHmacKey(), SignatureAlgorithm.HS256).compact();
     }
     /**
      * Valida el access token (JWT).
      */
     public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+    /**
+     * Verifica firma y expiración en una sola pasada y devuelve los datos del token.
+     * Punto de entrada único para el filtro y la capa de servicio.
+     * @return vacío si el token es inválido, está expirado o mal formado.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        // En RS256 pasada la ventana de migración, un token HS256 llega a jjwt y el llavero lo rechaza
+        if (fastCodec != null && keyRing.acceptsHs256()) {
+            Hs256JwtCodec.Decoded decoded = fastCodec.decode(token);
+            if (decoded.supported()) {
+                return Optional.ofNullable(decoded.token());
+            }
+            // Otro header (p. ej. RS256 con kid) o payload no previsto: lo resuelve jjwt
+        }
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            return Optional.of(toVerifiedToken(parser.parseClaimsJws(token).getBody()));
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
     // Métodos para extraer info del JWT
@@ -79,18 +139,36 @@ public class JwtUtil {
         return expiration.before(new Date());
     }
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        List<?> rawRoles = claims.get("roles", List.class);
+        List<String> roles = rawRoles == null
+                ? List.of()
+                : rawRoles.stream().map(String::valueOf).toList();
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("email", String.class),
+                roles,
+                claims.get("status", String.class),
+                claims.getId(),
+                issuedAt != null ? issuedAt.toInstant() : null,
+                expiration != null ? expiration.toInstant() : null);
+    }
+    /**
+     * Identificador único del access token (claim jti), usado para revocarlo antes de su expiración.
+     */
+    private String newJti() {
+        return random.randomUUID().toString();
     }
     // --- REFRESH TOKEN: String aleatorio ---
     /**
-     * Genera un refresh token seguro (no JWT, solo string largo con entropía).
-     * Debe ser persistido en la base de datos junto a su expiración calculada en la capa de servicio.
+     * @return refresh token nuevo en formato selector/verificador ({@link SplitRefreshToken}).
      */
     public String generateRefreshToken(AuthUser user) {
-        // String aleatorio seguro. Puedes usar solo UUID si prefieres mayor compatibilidad.
-        byte[] randomBytes = new byte[64];
-        secureRandom.nextBytes(randomBytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        return SplitRefreshToken.generate(random.current());
     }
     /**
      * @return configuración en milisegundos de expiración para refresh tokens.
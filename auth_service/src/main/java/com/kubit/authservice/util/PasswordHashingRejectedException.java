@@ -0,0 +1,10 @@
+package com.kubit.authservice.util;
+
+/**
+ * El pool de hashing de contraseñas está saturado; el cliente debe reintentar más tarde (HTTP 503).
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
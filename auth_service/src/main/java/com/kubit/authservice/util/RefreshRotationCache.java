@@ -0,0 +1,100 @@
+package com.kubit.authservice.util;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kubit.authservice.domain.entity.UserLoginResponse;
+
+/**
+ * Ventana de gracia para rotaciones concurrentes del mismo refresh token (dos pestañas que refrescan a la vez).
+ * Quien gana el UPDATE condicional registra aquí, por id del token rotado, el par nuevo que va a emitir; quien
+ * pierde recibe ese mismo par en lugar de un error, sin volver a la base de datos. El par se publica recién
+ * cuando commitea la transacción del ganador; si hace rollback, los que esperaban reciben el rechazo normal.
+ * <p>
+ * Las entradas viven {@code auth.refreshToken.graceMs} y solo existen en esta instancia: si el ganador corrió en
+ * otra, el perdedor ve el token revocado como siempre.
+ * <p>
+ * El mismo {@link UserLoginResponse} llega a todos los que esperaban: quien lo recibe no lo modifica (el controller
+ * arma su propia copia del usuario para la respuesta).
+ */
+@Component
+public class RefreshRotationCache {
+    private final Cache<Long, CompletableFuture<UserLoginResponse>> rotations;
+    private final long waitMs;
+
+    public RefreshRotationCache(
+        @Value("${auth.refreshToken.graceMs:10000}") long graceMs,
+        @Value("${auth.refreshToken.graceWaitMs:1000}") long waitMs
+    ) {
+        this.waitMs = waitMs;
+        this.rotations = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(graceMs))
+            .maximumSize(100_000)
+            .build();
+    }
+
+    /**
+     * Registra la rotación del token {@code rotatedTokenId}; se llama después de ganar el UPDATE.
+     */
+    public CompletableFuture<UserLoginResponse> begin(Long rotatedTokenId) {
+        CompletableFuture<UserLoginResponse> rotation = new CompletableFuture<>();
+        rotations.put(rotatedTokenId, rotation);
+        return rotation;
+    }
+
+    /**
+     * Publica el par nuevo cuando commitea la transacción actual (o ya, si no hay transacción).
+     */
+    public void complete(Long rotatedTokenId, CompletableFuture<UserLoginResponse> rotation, UserLoginResponse issued) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rotation.complete(issued);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    rotation.complete(issued);
+                } else {
+                    abort(rotatedTokenId, rotation);
+                }
+            }
+        });
+    }
+
+    public void abort(Long rotatedTokenId, CompletableFuture<UserLoginResponse> rotation) {
+        rotations.asMap().remove(rotatedTokenId, rotation);
+        rotation.completeExceptionally(new IllegalStateException("Refresh token rotation rolled back"));
+    }
+
+    /**
+     * @return el par emitido por la rotación concurrente de {@code rotatedTokenId}, esperando como máximo
+     * {@code auth.refreshToken.graceWaitMs} a que el ganador commitee; vacío si no hubo rotación reciente aquí.
+     */
+    public Optional<UserLoginResponse> await(Long rotatedTokenId) {
+        CompletableFuture<UserLoginResponse> rotation = rotatedTokenId != null
+            ? rotations.getIfPresent(rotatedTokenId) : null;
+        if (rotation == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(rotation.get(waitMs, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException | TimeoutException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+}
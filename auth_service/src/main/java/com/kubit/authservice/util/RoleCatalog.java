@@ -0,0 +1,96 @@
+package com.kubit.authservice.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kubit.authservice.domain.entity.Role;
+import com.kubit.authservice.domain.entity.RoleChangeListener;
+import com.kubit.authservice.domain.repository.RoleRepository;
+
+/**
+ * Catálogo de roles en memoria por nombre e id. Se carga al arrancar y se recarga cuando cambia la versión de
+ * {@link RoleChangeListener} (altas/bajas hechas en esta instancia) o cada {@code auth.roles.refreshIntervalMs}
+ * (cambios hechos en otra instancia). Un nombre que no está en el catálogo se busca en la base de datos.
+ * <p>
+ * Devuelve {@link RoleRef} inmutables, compartidos por todos los hilos; nunca entrega la entidad {@link Role}.
+ */
+@Component
+public class RoleCatalog {
+    private static final Logger log = LoggerFactory.getLogger(RoleCatalog.class);
+
+    private record Snapshot(Map<String, RoleRef> byName, Map<Long, RoleRef> byId, long version) { }
+
+    private final RoleRepository roleRepository;
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), -1);
+
+    public RoleCatalog(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    public Optional<RoleRef> findByName(String name) {
+        RoleRef role = current().byName().get(name);
+        if (role != null) {
+            return Optional.of(role);
+        }
+        // Puede haberse creado en otra instancia después de la última recarga
+        Optional<Role> fromDb = roleRepository.findByName(name);
+        if (fromDb.isPresent()) {
+            reload();
+        }
+        return fromDb.map(found -> snapshot.byName().getOrDefault(name, RoleRef.of(found)));
+    }
+
+    public Optional<RoleRef> findById(Long id) {
+        RoleRef role = current().byId().get(id);
+        if (role != null) {
+            return Optional.of(role);
+        }
+        Optional<Role> fromDb = roleRepository.findById(id);
+        if (fromDb.isPresent()) {
+            reload();
+        }
+        return fromDb.map(found -> snapshot.byId().getOrDefault(id, RoleRef.of(found)));
+    }
+
+    public int size() {
+        return current().byName().size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.roles.refreshIntervalMs:300000}",
+               initialDelayString = "${auth.roles.refreshIntervalMs:300000}")
+    public void reload() {
+        long version = RoleChangeListener.version();
+        List<Role> roles = roleRepository.findAll();
+        Map<String, RoleRef> byName = new HashMap<>();
+        Map<Long, RoleRef> byId = new HashMap<>();
+        for (Role role : roles) {
+            RoleRef ref = RoleRef.of(role);
+            byName.put(ref.name(), ref);
+            byId.put(ref.id(), ref);
+        }
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(Map.copyOf(byName), Map.copyOf(byId), version);
+        if (!previous.byName().keySet().equals(byName.keySet())) {
+            log.info("Catálogo de roles cargado: {}", byName.keySet());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current.version() != RoleChangeListener.version()) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,22 @@
+package com.kubit.authservice.util;
+
+import com.kubit.authservice.domain.entity.Role;
+
+/**
+ * Vista inmutable de un rol del {@link RoleCatalog}. Se comparte entre hilos; para asociar el rol a un usuario se
+ * arma con {@link #toEntity()} una entidad propia de esa operación.
+ */
+public record RoleRef(Long id, String name) {
+
+    public static RoleRef of(Role role) {
+        return new RoleRef(role.getId(), role.getName());
+    }
+
+    /**
+     * @return {@link Role} nuevo y desprendido con este id y nombre: al persistir el usuario solo se usa el id para
+     * la tabla de unión, sin SELECT del rol; el nombre queda para la respuesta.
+     */
+    public Role toEntity() {
+        return Role.builder().id(id).name(name).build();
+    }
+}
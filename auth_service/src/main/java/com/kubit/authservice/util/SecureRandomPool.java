@@ -0,0 +1,106 @@
+package com.kubit.authservice.util;
+
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fuente de aleatoriedad criptográfica para refresh tokens, deviceId y {@code jti}, repartida en varias
+ * instancias DRBG (Hash_DRBG, SHA-256) independientes. Cada DRBG tiene su propio lock, así que con más franjas
+ * que hilos concurrentes los logins casi nunca esperan entre sí, a diferencia de un único {@link SecureRandom}
+ * compartido o de {@link UUID#randomUUID()} (otro {@code SecureRandom} global).
+ * <p>
+ * Las franjas se siembran del sistema operativo al crear el pool (no en el primer login) y se resiembran cada
+ * {@code auth.random.reseedIntervalMs}; entre resiembras no se lee entropía del kernel. La franja se elige al
+ * azar en cada llamada, lo que también sirve con virtual threads (un DRBG por hilo costaría una siembra por request).
+ * El DRBG del JDK genera bajo {@code synchronized}: en JDK 21 un virtual thread que espera una franja ocupada fija
+ * su carrier (JDK 24 lo quita, JEP 491). Con el doble de franjas que CPUs esa espera es rara y dura una generación.
+ */
+@Component
+public class SecureRandomPool {
+    private static final Logger log = LoggerFactory.getLogger(SecureRandomPool.class);
+
+    private final SecureRandom[] stripes;
+    private final int mask;
+
+    public SecureRandomPool(@Value("${auth.random.stripes:0}") int stripes) {
+        int requested = stripes > 0 ? stripes : 2 * Runtime.getRuntime().availableProcessors();
+        // Potencia de dos para elegir la franja con una máscara
+        int size = requested <= 1 ? 1 : Integer.highestOneBit(requested - 1) << 1;
+        this.stripes = new SecureRandom[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = newDrbg();
+        }
+    }
+
+    /**
+     * @return una de las franjas; sirve para llamadas puntuales, no para guardarla.
+     */
+    public SecureRandom current() {
+        return stripes[ThreadLocalRandom.current().nextInt() & mask];
+    }
+
+    public void nextBytes(byte[] bytes) {
+        current().nextBytes(bytes);
+    }
+
+    /**
+     * UUID versión 4, equivalente a {@link UUID#randomUUID()} pero desde el pool.
+     */
+    public UUID randomUUID() {
+        byte[] bytes = new byte[16];
+        nextBytes(bytes);
+        bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x40);
+        bytes[8] = (byte) ((bytes[8] & 0x3f) | 0x80);
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xff);
+            lsb = (lsb << 8) | (bytes[i + 8] & 0xff);
+        }
+        return new UUID(msb, lsb);
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Resiembra cada franja desde el sistema operativo, una a la vez: solo bloquea la franja que se está resembrando.
+     */
+    @Scheduled(fixedDelayString = "${auth.random.reseedIntervalMs:3600000}",
+               initialDelayString = "${auth.random.reseedIntervalMs:3600000}")
+    public void reseed() {
+        for (SecureRandom stripe : stripes) {
+            try {
+                stripe.reseed();
+            } catch (UnsupportedOperationException e) {
+                // Fallback sin DRBG: el proveedor se resiembra solo
+                return;
+            }
+        }
+        log.debug("SecureRandomPool resembrado ({} franjas)", stripes.length);
+    }
+
+    private static SecureRandom newDrbg() {
+        SecureRandom random;
+        try {
+            random = SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            random = new SecureRandom();
+        }
+        // DRBG se siembra en el primer uso: se fuerza ahora para no pagarlo en un request
+        random.nextBytes(new byte[1]);
+        return random;
+    }
+}
@@ -0,0 +1,75 @@
+package com.kubit.authservice.util;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.kubit.authservice.util.AuthMetrics.Phase;
+
+/**
+ * Acumula la duración de cada fase de {@code AuthService} durante un request para el header
+ * {@code Server-Timing} (p. ej. {@code db-user;dur=1.8, bcrypt;dur=52.3, mint;dur=0.4}).
+ * El controller abre la medición con {@link #start()} y la cierra con {@link #clear()}; entre ambos, el hilo del
+ * request acumula en un arreglo propio. Con {@code auth.serverTiming.enabled=false} (default) cada llamada
+ * termina en la lectura de un campo final.
+ */
+@Component
+public class ServerTimingRecorder {
+    private static final Phase[] PHASES = Phase.values();
+
+    private final boolean enabled;
+    private final ThreadLocal<long[]> current = new ThreadLocal<>();
+
+    public ServerTimingRecorder(@Value("${auth.serverTiming.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static ServerTimingRecorder disabled() {
+        return new ServerTimingRecorder(false);
+    }
+
+    public void start() {
+        if (enabled) {
+            current.set(new long[PHASES.length]);
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        long[] durations = current.get();
+        if (durations != null) {
+            durations[phase.ordinal()] += nanos;
+        }
+    }
+
+    /**
+     * @return el valor del header con las fases medidas en este request, o null si no hay nada que reportar.
+     */
+    public String header() {
+        long[] durations = enabled ? current.get() : null;
+        if (durations == null) {
+            return null;
+        }
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : PHASES) {
+            long nanos = durations[phase.ordinal()];
+            if (nanos > 0) {
+                if (header.length() > 0) {
+                    header.append(", ");
+                }
+                header.append(phase.serverTimingName()).append(";dur=")
+                        .append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0));
+            }
+        }
+        return header.length() > 0 ? header.toString() : null;
+    }
+
+    public void clear() {
+        if (enabled) {
+            current.remove();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.kubit.authservice.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Refresh token en formato selector/verificador: {@code <selector>.<verificador>} en Base64 URL.
+ * <ul>
+ * <li>El selector (12 bytes) se guarda tal cual en {@code refresh_token.selector binary(12)}, índice único de
+ * ancho fijo con el que se busca la fila.</li>
+ * <li>Del verificador (32 bytes) solo se guarda el SHA-256 en {@code verifier_hash binary(32)} y se compara en
+ * tiempo constante; una copia de la tabla no alcanza para presentar un token válido.</li>
+ * </ul>
+ * Los tokens del formato anterior (Base64 sin punto, columna {@code token}) se reconocen porque no tienen
+ * separador y se siguen aceptando hasta que expiren.
+ */
+public final class SplitRefreshToken {
+    public static final int SELECTOR_BYTES = 12;
+    public static final int VERIFIER_BYTES = 32;
+
+    private static final int SELECTOR_CHARS = 16;
+    private static final int VERIFIER_CHARS = 43;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final byte[] selector;
+    private final byte[] verifierHash;
+
+    private SplitRefreshToken(byte[] selector, byte[] verifierHash) {
+        this.selector = selector;
+        this.verifierHash = verifierHash;
+    }
+
+    /**
+     * @return un token nuevo para entregar al cliente; {@link #parse(String)} da lo que se persiste.
+     */
+    public static String generate(SecureRandom random) {
+        byte[] selector = new byte[SELECTOR_BYTES];
+        byte[] verifier = new byte[VERIFIER_BYTES];
+        random.nextBytes(selector);
+        random.nextBytes(verifier);
+        return ENCODER.encodeToString(selector) + '.' + ENCODER.encodeToString(verifier);
+    }
+
+    public static boolean isSplitFormat(String token) {
+        return token != null && token.indexOf('.') >= 0;
+    }
+
+    /**
+     * @return selector y hash del verificador, o vacío si el token no tiene el formato (o es de los anteriores).
+     */
+    public static Optional<SplitRefreshToken> parse(String token) {
+        if (token == null || token.length() != SELECTOR_CHARS + 1 + VERIFIER_CHARS
+                || token.charAt(SELECTOR_CHARS) != '.') {
+            return Optional.empty();
+        }
+        try {
+            byte[] selector = DECODER.decode(token.substring(0, SELECTOR_CHARS));
+            byte[] verifier = DECODER.decode(token.substring(SELECTOR_CHARS + 1));
+            return Optional.of(new SplitRefreshToken(selector, sha256(verifier)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public byte[] selector() {
+        return selector.clone();
+    }
+
+    public byte[] verifierHash() {
+        return verifierHash.clone();
+    }
+
+    /**
+     * Compara en tiempo constante contra el hash guardado.
+     */
+    public boolean matches(byte[] storedVerifierHash) {
+        return storedVerifierHash != null && MessageDigest.isEqual(verifierHash, storedVerifierHash);
+    }
+
+    private static byte[] sha256(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
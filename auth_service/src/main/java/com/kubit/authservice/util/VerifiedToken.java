@@ -0,0 +1,26 @@
+package com.kubit.authservice.util;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resultado inmutable de verificar un access token (JWT): firma y expiración ya comprobadas.
+ * Lo comparten el filtro de seguridad y la capa de servicio para no volver a parsear el token.
+ */
+public record VerifiedToken(
+        String subject,
+        String email,
+        List<String> roles,
+        String status,
+        String jti,
+        Instant issuedAt,
+        Instant expiresAt) {
+
+    public VerifiedToken {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
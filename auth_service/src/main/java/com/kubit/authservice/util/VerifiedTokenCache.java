@@ -0,0 +1,135 @@
+package com.kubit.authservice.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caché acotada de access tokens ya verificados, delante de {@link JwtUtil#verify(String)}.
+ * La llave es el SHA-256 del token (no se guarda el token) y cada entrada expira, a más tardar,
+ * en el {@code exp} del propio JWT. Solo se insertan tokens con firma válida, así que una
+ * avalancha de tokens falsificados no ocupa memoria; el tamaño máximo es un límite duro.
+ * La denylist se consulta en cada llamada, también en los aciertos de caché.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+    // Prototipo que se clona por llamada: más barato que getInstance y sin ThreadLocal (un virtual thread por
+    // request lo recrearía siempre)
+    private static final MessageDigest SHA256;
+
+    static {
+        try {
+            SHA256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private final JwtUtil jwtUtil;
+    private final AccessTokenDenylist denylist;
+    private final Cache<TokenDigest, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+        JwtUtil jwtUtil,
+        AccessTokenDenylist denylist,
+        @Value("${jwt.cache.maxEntries:10000}") long maxEntries
+    ) {
+        this.jwtUtil = jwtUtil;
+        this.denylist = denylist;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfter(new ExpireAtTokenExp())
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Igual que {@link JwtUtil#verify(String)}, pero reutiliza el resultado si el mismo token
+     * ya fue verificado y sigue vigente, y descarta los tokens revocados.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return Optional.empty();
+        }
+        TokenDigest key = TokenDigest.of(token);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return denylist.isRevoked(cached) ? Optional.empty() : Optional.of(cached);
+        }
+        Optional<VerifiedToken> verified = jwtUtil.verify(token);
+        verified.ifPresent(v -> cache.put(key, v));
+        return verified.filter(v -> !denylist.isRevoked(v));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Expone hits, misses, evictions y tamaño como métricas cache.* con cache=jwt.verified
+        CaffeineCacheMetrics.monitor(registry, cache, "jwt.verified");
+    }
+
+    /**
+     * Llave de 256 bits derivada del token; evita retener el JWT completo en memoria.
+     */
+    private record TokenDigest(long a, long b, long c, long d) {
+        static TokenDigest of(String token) {
+            MessageDigest digest;
+            try {
+                digest = (MessageDigest) SHA256.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("SHA-256 digest is not cloneable", e);
+            }
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    private static final class ExpireAtTokenExp implements Expiry<TokenDigest, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return 0L;
+            }
+            long nanos = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+            return Math.max(0L, nanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+-- Particionado mensual de auth_audit_log (MySQL 8).
+--
+-- Se ejecuta una sola vez, en ventana de mantenimiento (reescribe la tabla completa):
+--   mysql -u root -p kiubit_auth < auth_audit_log_partitioning.sql
+--
+-- Después de esto AuditLogRetentionJob mantiene las particiones solo:
+--   * crea por adelantado las de los próximos auth.audit.retention.partitionsAhead meses (REORGANIZE de pmax)
+--   * archiva y elimina (DROP PARTITION) las que quedan completas antes de la ventana auth.audit.retention.months
+--
+-- Formato de archivo: <archiveDir>/auth_audit_log-<partición>.ndjson.gz, gzip de NDJSON (un objeto JSON por
+-- línea, UTF-8, ordenado por id) con las columnas de la tabla:
+--   {"id":1,"auth_user_id":5,"event_type":"LOGIN","ip_address":"10.0.0.1","created_at":"2025-09-30T12:00:00"}
+--
+-- MySQL exige que la columna de partición forme parte de toda llave única, por eso la PK pasa a (id, created_at).
+-- Las consultas que filtran por created_at solo leen las particiones del rango (partition pruning); para
+-- auditoría por usuario filtrar también por created_at y así aprovechar idx_audit_log_user_created.
+-- Las fronteras de UNIX_TIMESTAMP se calculan con la zona horaria de la sesión: usar la misma que la aplicación (UTC).
+
+SET time_zone = '+00:00';
+
+ALTER TABLE auth_audit_log
+    MODIFY created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+CREATE INDEX idx_audit_log_user_created ON auth_audit_log (auth_user_id, created_at);
+
+-- p_legacy junta todo lo anterior al primer mes particionado; ajustar las fechas al mes en curso.
+ALTER TABLE auth_audit_log
+    PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+        PARTITION p_legacy VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+        PARTITION p202610 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+        PARTITION p202611 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+        PARTITION p202612 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+        PARTITION pmax VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,20 @@
+-- Generador de ids de auth_audit_log (@TableGenerator pooled, allocationSize = 50). El writer de auditoría
+-- reserva bloques de 50 ids con un UPDATE y los asigna en memoria, así que sus INSERT ya no necesitan leer el id
+-- generado y Hibernate los puede agrupar (hibernate.jdbc.batch_size). auth_user y refresh_token siguen con
+-- AUTO_INCREMENT: se insertan de a una fila por request.
+--
+-- Se ejecuta una sola vez, con todas las instancias en la versión nueva o detenidas:
+--   mysql -u root -p kiubit_auth < id_sequence.sql
+--
+-- next_val es el tope del próximo bloque: el optimizador pooled entrega (next_val - 49) .. next_val, por eso
+-- el valor inicial es MAX(id) + 50.
+
+CREATE TABLE IF NOT EXISTS id_sequence (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
+
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'auth_audit_log', COALESCE(MAX(id), 0) + 50 FROM auth_audit_log;
+
+-- Sin AUTO_INCREMENT un INSERT que no traiga id falla en vez de chocar con un bloque ya reservado
+ALTER TABLE auth_audit_log MODIFY id BIGINT NOT NULL;
@@ -0,0 +1,6 @@
+-- Candados de trabajos programados (JobLockService). Una fila por trabajo; se crea sola en la primera ejecución.
+CREATE TABLE IF NOT EXISTS job_lock (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    locked_by VARCHAR(128) NOT NULL,
+    locked_until TIMESTAMP NOT NULL
+);
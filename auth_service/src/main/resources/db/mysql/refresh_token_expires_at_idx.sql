@@ -0,0 +1,12 @@
+-- Índices para RefreshTokenPurgeJob. Cada corrida calcula auth.refresh_token.purge.lag con
+-- min(expires_at) where expires_at < now y min(revoked_at) where revoked_at < now - retención; sin índice ambos
+-- recorren la tabla completa. Con ellos cada min() lee la primera entrada del índice.
+--
+-- Se ejecuta después de refresh_token_revoked_at.sql. InnoDB crea los índices en línea (ALGORITHM=INPLACE,
+-- LOCK=NONE), sin bloquear los logins:
+--   mysql -u root -p kiubit_auth < refresh_token_expires_at_idx.sql
+
+ALTER TABLE refresh_token
+    ADD INDEX idx_refresh_token_expires_at (expires_at),
+    ADD INDEX idx_refresh_token_revoked_at (revoked_at),
+    ALGORITHM = INPLACE, LOCK = NONE;
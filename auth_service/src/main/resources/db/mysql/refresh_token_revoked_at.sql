@@ -0,0 +1,10 @@
+-- Momento de la revocación de cada refresh token. RefreshTokenPurgeJob borra los revocados hace más de
+-- auth.refreshToken.purge.revokedRetentionHours contando desde revoked_at (antes usaba created_at, y un token
+-- viejo revocado hace un minuto se borraba en la siguiente corrida). Las filas revocadas antes de esta columna
+-- quedan con NULL y se siguen purgando por created_at.
+--
+-- Se ejecuta antes de desplegar la versión nueva (la anterior no usa la columna):
+--   mysql -u root -p kiubit_auth < refresh_token_revoked_at.sql
+
+ALTER TABLE refresh_token
+    ADD COLUMN revoked_at TIMESTAMP NULL DEFAULT NULL AFTER revoked;
@@ -0,0 +1,16 @@
+-- Refresh tokens en formato selector/verificador (SplitRefreshToken). Las filas nuevas guardan el selector
+-- (12 bytes, índice único de ancho fijo) y el SHA-256 del verificador; la columna token queda solo para los
+-- tokens del formato anterior, que se siguen aceptando hasta que expiren.
+--
+-- Se ejecuta antes de desplegar la versión nueva (la anterior no usa las columnas nuevas):
+--   mysql -u root -p kiubit_auth < refresh_token_selector.sql
+
+ALTER TABLE refresh_token
+    MODIFY token VARCHAR(512) NULL,
+    ADD COLUMN selector BINARY(12) NULL AFTER token,
+    ADD COLUMN verifier_hash BINARY(32) NULL AFTER selector,
+    ADD UNIQUE INDEX uk_refresh_token_selector (selector);
+
+-- Cuando pase jwt.refreshExpirationMs desde el despliegue (y RefreshTokenPurgeJob haya borrado los vencidos),
+-- ya no quedan tokens del formato anterior:
+--   ALTER TABLE refresh_token DROP COLUMN token;  -- MySQL elimina también su índice único
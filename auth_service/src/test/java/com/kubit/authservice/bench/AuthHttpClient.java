@@ -0,0 +1,50 @@
+package com.kubit.authservice.bench;
+
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+/**
+ * Cliente HTTP mínimo para los benchmarks: POST JSON con las cookies de la sesión y actualización de las cookies
+ * con los {@code Set-Cookie} de la respuesta (deviceId, accessToken, refreshToken).
+ */
+class AuthHttpClient {
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+
+    AuthHttpClient(int port) {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    int login(String email, String password, Map<String, String> cookies) throws Exception {
+        return post("/auth/login", "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}", cookies);
+    }
+
+    /**
+     * @return código HTTP; las cookies se actualizan en el lugar.
+     */
+    int post(String path, String body, Map<String, String> cookies) throws Exception {
+        StringBuilder cookieHeader = new StringBuilder();
+        cookies.forEach((name, value) -> cookieHeader.append(name).append('=').append(value).append("; "));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (cookieHeader.length() > 0) {
+            request.header("Cookie", cookieHeader.toString());
+        }
+        HttpResponse<Void> response = http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        for (String setCookie : response.headers().allValues("Set-Cookie")) {
+            for (HttpCookie cookie : HttpCookie.parse(setCookie)) {
+                if (cookie.getMaxAge() == 0) {
+                    cookies.remove(cookie.getName());
+                } else {
+                    cookies.put(cookie.getName(), cookie.getValue());
+                }
+            }
+        }
+        return response.statusCode();
+    }
+}
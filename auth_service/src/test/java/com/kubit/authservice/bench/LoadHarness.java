@@ -0,0 +1,268 @@
+package com.kubit.authservice.bench;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.RegisterRequest;
+import com.kubit.authservice.domain.entity.Role;
+import com.kubit.authservice.domain.repository.RoleRepository;
+import com.kubit.authservice.service.AuthService;
+import jakarta.persistence.EntityManagerFactory;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga end-to-end: levanta auth_service en un puerto aleatorio, registra {@code load.users}
+ * usuarios (una sesión por usuario, con su deviceId) y reparte login, refresh (rotación por cookies), logout y
+ * logout-all según {@code load.mix}. No corre con {@code mvn test}:
+ * <pre>
+ * mvn test -Dsurefire.excludedGroups= -Dtest=LoadHarness -Dload.users=500 -Dload.concurrency=64 -Dload.rate=300
+ * </pre>
+ * Parámetros ({@code -D}):
+ * <ul>
+ * <li>{@code load.users} (200), {@code load.concurrency} (32): sesiones y requests en vuelo como máximo.</li>
+ * <li>{@code load.rate} (0): llegadas por segundo en lazo abierto; 0 = lazo cerrado ({@code concurrency}
+ * clientes sin pausa). En lazo abierto la latencia se mide desde el instante programado, así que incluye la espera
+ * en cola (sin coordinated omission); si no hay sesión libre la llegada se cuenta como {@code dropped}.</li>
+ * <li>{@code load.seconds} (30), {@code load.warmupSeconds} (5).</li>
+ * <li>{@code load.mix} ({@code refresh:60,login:20,logout:15,logoutAll:5}): pesos de la operación para una sesión
+ * activa; una sesión sin login siempre hace login.</li>
+ * <li>{@code load.jdbcUrl}, {@code load.jdbcUser}, {@code load.jdbcPassword}: base de datos (H2 en memoria por
+ * default). Con MySQL usar un esquema descartable: el esquema se recrea.</li>
+ * </ul>
+ * Salida: percentiles HdrHistogram por endpoint, throughput, errores y sentencias SQL (estadísticas de Hibernate,
+ * incluye la auditoría), más un {@code .hgrm} por endpoint en {@code target/load/} para comparar entre versiones.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=${load.jdbcUrl:jdbc:h2:mem:load;DB_CLOSE_DELAY=-1}",
+        "spring.datasource.username=${load.jdbcUser:sa}",
+        "spring.datasource.password=${load.jdbcPassword:}",
+        // Driver y dialecto se deducen de la URL
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.database-platform=",
+        "spring.jpa.show-sql=false"
+})
+class LoadHarness {
+
+    private enum Op { LOGIN, REFRESH, LOGOUT, LOGOUT_ALL }
+
+    private static final class Session {
+        final String email;
+        final Long userId;
+        final Map<String, String> cookies = new HashMap<>();
+        boolean loggedIn;
+
+        Session(String email, Long userId, String deviceId) {
+            this.email = email;
+            this.userId = userId;
+            cookies.put("deviceId", deviceId);
+        }
+    }
+
+    private static final class Stats {
+        final Map<Op, Histogram> latencies = new EnumMap<>(Op.class);
+        final Map<Op, AtomicLong> errors = new EnumMap<>(Op.class);
+        final AtomicLong dropped = new AtomicLong();
+
+        Stats() {
+            for (Op op : Op.values()) {
+                latencies.put(op, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+                errors.put(op, new AtomicLong());
+            }
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private AuthHttpClient http;
+    private Map<Op, Integer> mix;
+
+    @Test
+    void run() throws Exception {
+        int users = Integer.getInteger("load.users", 200);
+        int concurrency = Integer.getInteger("load.concurrency", 32);
+        int rate = Integer.getInteger("load.rate", 0);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5));
+        mix = parseMix(System.getProperty("load.mix", "refresh:60,login:20,logout:15,logoutAll:5"));
+        http = new AuthHttpClient(port);
+
+        ConcurrentLinkedQueue<Session> idle = new ConcurrentLinkedQueue<>(seed(users));
+        System.out.printf("users=%d concurrency=%d rate=%s seconds=%d mix=%s%n", users, concurrency,
+                rate > 0 ? rate + "/s" : "closed-loop", duration.toSeconds(), mix);
+
+        drive(idle, concurrency, rate, warmup, new Stats());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Stats stats = new Stats();
+        long elapsed = drive(idle, concurrency, rate, duration, stats);
+        report(stats, elapsed, statistics.getPrepareStatementCount());
+    }
+
+    private List<Session> seed(int users) {
+        if (roleRepository.findByName("ROLE_USER").isEmpty()) {
+            roleRepository.save(Role.builder().name("ROLE_USER").build());
+        }
+        List<Session> sessions = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            String email = "load" + i + "@test.com";
+            AuthUser user = authService.register(RegisterRequest.builder().email(email).password("secret").build());
+            sessions.add(new Session(email, user.getId(), "load-device-" + i));
+        }
+        return sessions;
+    }
+
+    /**
+     * @return nanosegundos transcurridos hasta que terminó el último request.
+     */
+    private long drive(ConcurrentLinkedQueue<Session> idle, int concurrency, int rate, Duration duration, Stats stats)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        if (rate > 0) {
+            // Lazo abierto: las llegadas siguen el reloj aunque el servicio se atrase
+            long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+            for (long intended = start; intended < deadline; intended += interval) {
+                LockSupport.parkNanos(intended - System.nanoTime());
+                Session session = idle.poll();
+                if (session == null) {
+                    stats.dropped.incrementAndGet();
+                    continue;
+                }
+                long scheduled = intended;
+                workers.execute(() -> {
+                    execute(session, scheduled, stats);
+                    idle.offer(session);
+                });
+            }
+        } else {
+            for (int i = 0; i < concurrency; i++) {
+                workers.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Session session = idle.poll();
+                        if (session == null) {
+                            Thread.onSpinWait();
+                            continue;
+                        }
+                        execute(session, System.nanoTime(), stats);
+                        idle.offer(session);
+                    }
+                });
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toSeconds() + 120, TimeUnit.SECONDS);
+        return System.nanoTime() - start;
+    }
+
+    private void execute(Session session, long scheduledNanos, Stats stats) {
+        Op op = session.loggedIn ? pick() : Op.LOGIN;
+        int status;
+        try {
+            status = switch (op) {
+                case LOGIN -> http.login(session.email, "secret", session.cookies);
+                case REFRESH -> http.post("/auth/refresh", "", session.cookies);
+                case LOGOUT -> http.post("/auth/logout", "", session.cookies);
+                case LOGOUT_ALL -> http.post("/auth/logout-all?userId=" + session.userId, "", session.cookies);
+            };
+        } catch (Exception e) {
+            status = -1;
+        }
+        long micros = (System.nanoTime() - scheduledNanos) / 1000;
+        if (status != 200) {
+            stats.errors.get(op).incrementAndGet();
+            session.loggedIn = false;
+            return;
+        }
+        stats.latencies.get(op).recordValue(Math.min(micros, TimeUnit.MINUTES.toMicros(1)));
+        session.loggedIn = op == Op.LOGIN || op == Op.REFRESH;
+    }
+
+    private Op pick() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Op, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Op.REFRESH;
+    }
+
+    private void report(Stats stats, long elapsedNanos, long statements) throws Exception {
+        double seconds = elapsedNanos / 1e9;
+        long requests = 0;
+        long errors = 0;
+        Path dir = Path.of("target", "load");
+        Files.createDirectories(dir);
+        System.out.printf("%-10s %8s %7s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Op op : Op.values()) {
+            Histogram histogram = stats.latencies.get(op);
+            long failed = stats.errors.get(op).get();
+            requests += histogram.getTotalCount() + failed;
+            errors += failed;
+            System.out.printf("%-10s %8d %7d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", op, histogram.getTotalCount(),
+                    failed, histogram.getTotalCount() / seconds, ms(histogram, 50), ms(histogram, 90),
+                    ms(histogram, 99), ms(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(op.name().toLowerCase() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.printf("total: %d requests, %.1f req/s, %d errors, %d dropped, %d SQL statements (%.2f/request)%n",
+                requests, requests / seconds, errors, stats.dropped.get(), statements,
+                requests == 0 ? 0.0 : (double) statements / requests);
+    }
+
+    private static double ms(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static Map<Op, Integer> parseMix(String spec) {
+        Map<Op, Integer> weights = new EnumMap<>(Op.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            Op op = switch (kv[0].trim()) {
+                case "login" -> Op.LOGIN;
+                case "refresh" -> Op.REFRESH;
+                case "logout" -> Op.LOGOUT;
+                case "logoutAll" -> Op.LOGOUT_ALL;
+                default -> throw new IllegalArgumentException("Operación desconocida en load.mix: " + kv[0]);
+            };
+            weights.put(op, Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+}
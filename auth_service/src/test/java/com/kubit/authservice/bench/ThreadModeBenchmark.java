@@ -0,0 +1,184 @@
+package com.kubit.authservice.bench;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.RegisterRequest;
+import com.kubit.authservice.domain.entity.Role;
+import com.kubit.authservice.domain.repository.AuthUserRepository;
+import com.kubit.authservice.domain.repository.RoleRepository;
+import com.kubit.authservice.service.AuthService;
+import com.kubit.authservice.util.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compara hilos de plataforma y virtual threads con las mezclas login, refresh y validate (introspección).
+ * validate repite el mismo token (acierto en {@code VerifiedTokenCache}); validate_uncached manda en cada request
+ * tokens recién emitidos, así que cada uno pasa por el SHA-256 de la caché y el HMAC de {@code Hs256JwtCodec}:
+ * es la mezcla que muestra el costo de recrear {@code Mac}/{@code MessageDigest} por hilo con virtual threads.
+ * No corre con {@code mvn test}; se ejecuta una vez por modo con el mismo heap y se comparan las líneas:
+ * <pre>
+ * mvn test -Dsurefire.excludedGroups= -Dtest=ThreadModeBenchmark -DargLine=-Xmx512m -Dbench.virtual=false
+ * mvn test -Dsurefire.excludedGroups= -Dtest=ThreadModeBenchmark -DargLine=-Xmx512m -Dbench.virtual=true
+ * </pre>
+ * {@code bench.virtual=true} requiere Java 21+. Otros parámetros: {@code bench.users}, {@code bench.clients},
+ * {@code bench.seconds} y {@code auth.password.bcrypt.cost} (4 en tests; usar el de producción para medir login).
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=${bench.virtual:false}",
+        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        // Los clientes del benchmark son usuarios comunes: en la mezcla validate actúan como gateway
+        "auth.introspect.authority=ROLE_USER"
+})
+class ThreadModeBenchmark {
+
+    private enum Mix { LOGIN, REFRESH, VALIDATE, VALIDATE_UNCACHED }
+
+    private static final int UNCACHED_BATCH = 8;
+
+    private record Result(long ops, long errors, long[] latenciesMicros, long elapsedNanos) { }
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private AuthUserRepository authUserRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private AuthHttpClient http;
+
+    @Test
+    void loginRefreshValidateMixes() throws Exception {
+        boolean virtual = Boolean.getBoolean("bench.virtual");
+        assumeTrue(!virtual || Runtime.version().feature() >= 21, "virtual threads requieren Java 21+");
+        int users = Integer.getInteger("bench.users", 200);
+        int clients = Integer.getInteger("bench.clients", 400);
+        Duration duration = Duration.ofSeconds(Long.getLong("bench.seconds", 20));
+        http = new AuthHttpClient(port);
+
+        if (roleRepository.findByName("ROLE_USER").isEmpty()) {
+            roleRepository.save(Role.builder().name("ROLE_USER").build());
+        }
+        for (int i = 0; i < users; i++) {
+            authService.register(RegisterRequest.builder().email(email(i)).password("secret").build());
+        }
+
+        System.out.printf("mode=%s java=%d heapMb=%d users=%d clients=%d seconds=%d%n",
+                virtual ? "virtual" : "platform", Runtime.version().feature(),
+                Runtime.getRuntime().maxMemory() >> 20, users, clients, duration.toSeconds());
+        for (Mix mix : Mix.values()) {
+            run(mix, users, clients, Duration.ofSeconds(2));
+            Result result = run(mix, users, clients, duration);
+            long[] latencies = result.latenciesMicros();
+            Arrays.sort(latencies);
+            System.out.printf("mix=%-17s ops/s=%8.1f p50=%6dus p99=%7dus max=%7dus errors=%d%n",
+                    mix, result.ops() * 1e9 / result.elapsedNanos(), percentile(latencies, 0.50),
+                    percentile(latencies, 0.99), latencies.length > 0 ? latencies[latencies.length - 1] : 0,
+                    result.errors());
+        }
+    }
+
+    private Result run(Mix mix, int users, int clients, Duration duration) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                futures.add(pool.submit(() -> client(mix, email(client % users), "bench-" + client, deadline, errors)));
+            }
+            List<long[]> perClient = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                perClient.add(future.get());
+            }
+            long elapsed = System.nanoTime() - start;
+            long[] all = perClient.stream().flatMapToLong(Arrays::stream).toArray();
+            return new Result(all.length, errors.get(), all, elapsed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Cliente en lazo cerrado: login una vez (salvo en LOGIN) y repite la operación de la mezcla hasta el deadline.
+     */
+    private long[] client(Mix mix, String email, String deviceId, long deadline, AtomicLong errors) {
+        Map<String, String> cookies = new HashMap<>();
+        cookies.put("deviceId", deviceId);
+        long[] latencies = new long[1024];
+        int count = 0;
+        try {
+            if (mix != Mix.LOGIN && login(email, cookies) != 200) {
+                errors.incrementAndGet();
+                return new long[0];
+            }
+            AuthUser user = mix == Mix.VALIDATE_UNCACHED ? authUserRepository.findByEmail(email).orElseThrow() : null;
+            while (System.nanoTime() < deadline) {
+                // Los tokens nuevos se emiten fuera de la medición
+                String uncached = mix == Mix.VALIDATE_UNCACHED ? freshTokens(user) : null;
+                long begin = System.nanoTime();
+                int status = switch (mix) {
+                    case LOGIN -> login(email, cookies);
+                    case REFRESH -> http.post("/auth/refresh", "", cookies);
+                    case VALIDATE -> http.post("/auth/introspect/batch",
+                            "{\"tokens\":[\"" + cookies.get("accessToken") + "\"]}", cookies);
+                    case VALIDATE_UNCACHED -> http.post("/auth/introspect/batch", "{\"tokens\":[" + uncached + "]}", cookies);
+                };
+                if (status != 200) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = (System.nanoTime() - begin) / 1000;
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private String freshTokens(AuthUser user) {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < UNCACHED_BATCH; i++) {
+            json.append(i > 0 ? ",\"" : "\"").append(jwtUtil.generateToken(user)).append('"');
+        }
+        return json.toString();
+    }
+
+    private int login(String email, Map<String, String> cookies) throws Exception {
+        return http.login(email, "secret", cookies);
+    }
+
+    private static String email(int index) {
+        return "bench" + index + "@test.com";
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))];
+    }
+}
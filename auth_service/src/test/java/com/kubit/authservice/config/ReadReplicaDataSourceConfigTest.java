@@ -0,0 +1,63 @@
+package com.kubit.authservice.config;
+
+import com.kubit.authservice.domain.entity.*;
+import com.kubit.authservice.domain.repository.RoleRepository;
+import com.kubit.authservice.service.AuthService;
+import org.junit.jupiter.api.Test;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * La "réplica" apunta a la misma base H2 que el primario (réplica sin lag) para probar el cableado completo. Su URL
+ * lleva comillas a propósito: la condición de la configuración no debe interpretarla.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=7",
+        "auth.datasource.replica.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1;INIT=SET @NODE = 'replica'",
+        "auth.datasource.replica.hikari.maximum-pool-size=3"
+})
+class ReadReplicaDataSourceConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primary;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replica;
+
+    @Test
+    void bindsHikariSettingsOfBothPools() {
+        assertEquals(7, primary.getMaximumPoolSize());
+        assertEquals(3, replica.getMaximumPoolSize());
+        assertTrue(replica.isReadOnly());
+    }
+
+    @Test
+    void routesThroughLazyProxyAndServesLogin() {
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+        assertInstanceOf(ReplicaRoutingDataSource.class,
+                ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource());
+
+        roleRepository.save(Role.builder().name("ROLE_USER").build());
+        authService.register(RegisterRequest.builder().email("replica@test.com").password("secret").build());
+        UserLoginResponse response = authService.login(LoginRequest.builder()
+                .email("replica@test.com").password("secret").deviceId("dev1").build());
+
+        assertNotNull(response.getRefreshToken());
+        assertNotNull(authService.refreshToken(response.getRefreshToken(), "dev1", "127.0.0.1").getAccessToken());
+    }
+}
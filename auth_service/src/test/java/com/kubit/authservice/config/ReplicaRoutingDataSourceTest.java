@@ -0,0 +1,100 @@
+package com.kubit.authservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos bases H2 en memoria hacen de primario y réplica; cada una responde su propio nombre.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = database("primary");
+    private final DataSource replica = database("replica");
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(primary).execute("drop table node");
+        new JdbcTemplate(replica).execute("drop table node");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        Routing routing = routing(1000);
+
+        assertEquals("replica", routing.read());
+        assertEquals("primary", routing.write());
+    }
+
+    @Test
+    void readsRightAfterAWriteOnTheSameThreadStayOnPrimary() throws Exception {
+        Routing routing = routing(60_000);
+
+        routing.write();
+
+        assertEquals("primary", routing.read());
+        // Otro hilo (otro request) no escribió: sigue yendo a la réplica
+        assertEquals("replica", CompletableFuture.supplyAsync(routing::read).get());
+    }
+
+    @Test
+    void clearingTheWriteMarkSendsReadsBackToReplica() {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replica, 60_000);
+        Routing routing = routing(routingDataSource);
+
+        routing.write();
+        routingDataSource.clearWriteMark();
+
+        assertEquals("replica", routing.read());
+    }
+
+    @Test
+    void readsGoBackToReplicaOnceTheLagWindowPasses() throws Exception {
+        Routing routing = routing(50);
+
+        routing.write();
+        Thread.sleep(100);
+
+        assertEquals("replica", routing.read());
+    }
+
+    private Routing routing(long maxLagMs) {
+        return routing(new ReplicaRoutingDataSource(primary, replica, maxLagMs));
+    }
+
+    private Routing routing(ReplicaRoutingDataSource routingDataSource) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        return new Routing(new JdbcTemplate(dataSource), new DataSourceTransactionManager(dataSource));
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(16))");
+        jdbc.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private record Routing(JdbcTemplate jdbc, DataSourceTransactionManager transactionManager) {
+
+        String read() {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            return tx.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+
+        String write() {
+            return new TransactionTemplate(transactionManager)
+                    .execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+    }
+}
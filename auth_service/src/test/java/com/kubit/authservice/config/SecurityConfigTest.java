@@ -0,0 +1,74 @@
+package com.kubit.authservice.config;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.kubit.authservice.controller.AuthController;
+import com.kubit.authservice.service.AuthService;
+import com.kubit.authservice.service.TokenIntrospectionService;
+import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.SecureRandomPool;
+import com.kubit.authservice.util.ServerTimingRecorder;
+import com.kubit.authservice.util.VerifiedToken;
+import com.kubit.authservice.util.VerifiedTokenCache;
+
+import jakarta.servlet.http.Cookie;
+
+@WebMvcTest(controllers = AuthController.class)
+@Import({ SecurityConfig.class, ServerTimingRecorder.class, SecureRandomPool.class })
+class SecurityConfigTest {
+
+    private static final String BATCH = "{\"tokens\":[\"t1\"]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private VerifiedTokenCache verifiedTokenCache;
+    @MockitoBean
+    private AuthService authService;
+    @MockitoBean
+    private JwtUtil jwtUtil;
+    @MockitoBean
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @Test
+    void introspectBatch_anonymous_isUnauthorized() throws Exception {
+        mockMvc.perform(post("/auth/introspect/batch").contentType(MediaType.APPLICATION_JSON).content(BATCH))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void introspectBatch_userToken_isForbidden() throws Exception {
+        given(verifiedTokenCache.verify("user-jwt")).willReturn(Optional.of(token("ROLE_USER")));
+        mockMvc.perform(post("/auth/introspect/batch").cookie(new Cookie("accessToken", "user-jwt"))
+                        .contentType(MediaType.APPLICATION_JSON).content(BATCH))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void introspectBatch_serviceToken_isAllowed() throws Exception {
+        given(verifiedTokenCache.verify("gateway-jwt")).willReturn(Optional.of(token("ROLE_INTROSPECT")));
+        given(tokenIntrospectionService.introspect(any())).willReturn(List.of());
+        mockMvc.perform(post("/auth/introspect/batch").cookie(new Cookie("accessToken", "gateway-jwt"))
+                        .contentType(MediaType.APPLICATION_JSON).content(BATCH))
+                .andExpect(status().isOk());
+    }
+
+    private static VerifiedToken token(String role) {
+        return new VerifiedToken("7", "svc@kiubit.mx", List.of(role), "ACTIVE", null, null, null);
+    }
+}
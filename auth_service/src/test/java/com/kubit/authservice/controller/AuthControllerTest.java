@@ -2,11 +2,17 @@ package com.kubit.authservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.IntrospectBatchRequest;
+import com.kubit.authservice.domain.entity.TokenIntrospection;
 import com.kubit.authservice.domain.entity.RegisterRequest;
 import com.kubit.authservice.domain.entity.LoginRequest;
 import com.kubit.authservice.domain.entity.UserLoginResponse;
 import com.kubit.authservice.service.AuthService;
+import com.kubit.authservice.service.TokenIntrospectionService;
+import com.kubit.authservice.util.AuthMetrics.Phase;
 import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.SecureRandomPool;
+import com.kubit.authservice.util.ServerTimingRecorder;
 
 import jakarta.servlet.http.Cookie;
 
@@ -16,11 +22,14 @@ import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -30,7 +39,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @AutoConfigureMockMvc(addFilters = false)
-@WebMvcTest(AuthController.class)
+@WebMvcTest(controllers = AuthController.class, properties = "auth.serverTiming.enabled=true")
+@Import({ ServerTimingRecorder.class, SecureRandomPool.class })
 class AuthControllerTest {
 
         @Autowired
@@ -47,6 +57,12 @@ class AuthControllerTest {
         @MockitoBean
         private JwtUtil jwtUtil;
 
+        @MockitoBean
+        private TokenIntrospectionService tokenIntrospectionService;
+
+        @Autowired
+        private ServerTimingRecorder serverTimingRecorder;
+
         private RegisterRequest registerRequest;
         private LoginRequest loginRequest;
         private AuthUser authUser;
@@ -102,6 +118,21 @@ class AuthControllerTest {
                                 .andReturn();
         }
 
+        @Test
+        void login_WritesServerTimingFromRecordedPhases() throws Exception {
+                given(authService.login(any(LoginRequest.class))).willAnswer(invocation -> {
+                        serverTimingRecorder.record(Phase.USER_LOOKUP, 1_500_000);
+                        serverTimingRecorder.record(Phase.PASSWORD, 52_000_000);
+                        return userLoginResponse;
+                });
+
+                mockMvc.perform(post("/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(loginRequest)))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Server-Timing", "db-user;dur=1.5, bcrypt;dur=52.0"));
+        }
+
         @Test
         void refresh_ReturnsSetCookieAndUser() throws Exception {
                 given(authService.refreshToken(anyString(), anyString(), anyString()))
@@ -113,7 +144,25 @@ class AuthControllerTest {
                                 .andExpect(status().isOk())
                                 .andExpect(cookie().exists("accessToken"))
                                 .andExpect(cookie().exists("refreshToken"))
+                                .andExpect(jsonPath("$.user.email").value("test@kiubit.mx"))
+                                .andExpect(header().doesNotExist("Server-Timing"));
+        }
+
+        @Test
+        void refresh_DoesNotMutateSharedResponse() throws Exception {
+                // Respuesta de la ventana de gracia: el mismo objeto para varios requests concurrentes
+                authUser.setPasswordHash("hash");
+                given(authService.refreshToken(anyString(), anyString(), anyString()))
+                                .willReturn(userLoginResponse);
+                mockMvc.perform(post("/auth/refresh")
+                                .cookie(new Cookie("refreshToken", "refreshToken"))
+                                .cookie(new Cookie("deviceId", "device123")))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.user.passwordHash").doesNotExist())
                                 .andExpect(jsonPath("$.user.email").value("test@kiubit.mx"));
+
+                assertEquals("hash", authUser.getPasswordHash());
+                assertEquals("accessToken", userLoginResponse.getAccessToken());
         }
 
         @Test
@@ -151,4 +200,23 @@ class AuthControllerTest {
                                 .content(objectMapper.writeValueAsString(req)))
                                 .andExpect(status().is4xxClientError());
         }
+
+        @Test
+        void introspectBatch_ReturnsResultPerToken() throws Exception {
+                given(tokenIntrospectionService.introspect(List.of("good", "bad")))
+                                .willReturn(List.of(
+                                                TokenIntrospection.builder().active(true).sub("1")
+                                                                .roles(List.of("ROLE_USER")).exp(1760000000L).build(),
+                                                TokenIntrospection.inactive()));
+                mockMvc.perform(post("/auth/introspect/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(
+                                                new IntrospectBatchRequest(List.of("good", "bad")))))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.results[0].active").value(true))
+                                .andExpect(jsonPath("$.results[0].sub").value("1"))
+                                .andExpect(jsonPath("$.results[0].roles[0]").value("ROLE_USER"))
+                                .andExpect(jsonPath("$.results[1].active").value(false))
+                                .andExpect(jsonPath("$.results[1].sub").doesNotExist());
+        }
 }
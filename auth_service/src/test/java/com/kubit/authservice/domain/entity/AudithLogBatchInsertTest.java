@@ -0,0 +1,47 @@
+package com.kubit.authservice.domain.entity;
+
+import com.kubit.authservice.domain.repository.AudithLogRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class AudithLogBatchInsertTest {
+
+    @Autowired
+    private AudithLogRepository audithLogRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void insertsAreBatchedWithPooledIds() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        List<AudithLog> logs = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            logs.add(AudithLog.builder().authUserId((long) i).eventType("LOGIN").createdAt(LocalDateTime.now()).build());
+        }
+
+        statistics.clear();
+        audithLogRepository.saveAll(logs);
+        entityManager.flush();
+
+        Set<Long> ids = new HashSet<>();
+        logs.forEach(log -> ids.add(log.getId()));
+        assertEquals(120, ids.size());
+        assertEquals(120, statistics.getEntityInsertCount());
+        // 120 filas en lotes de 50 (3 INSERT) más las reservas de bloques en id_sequence
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                "statements=" + statistics.getPrepareStatementCount());
+    }
+}
@@ -5,15 +5,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
 
+import jakarta.persistence.EntityManager;
+
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class AudithLogRepositoryTest {
     @Autowired
     private AudithLogRepository logRepo;
+    @Autowired
+    private EntityManager entityManager;
 
     @Test
     void canPersistAuditLog() {
@@ -28,4 +33,24 @@ class AudithLogRepositoryTest {
         assertEquals("LOGIN", saved.getEventType());
         assertEquals("127.0.0.1", saved.getIpAddress());
     }
+
+    @Test
+    void keepsEventTimeOnInsert() {
+        LocalDateTime eventTime = LocalDateTime.of(2025, 1, 31, 23, 59, 30);
+        Long id = logRepo.saveAndFlush(AudithLog.builder()
+                .authUserId(1L)
+                .eventType("LOGIN")
+                .createdAt(eventTime)
+                .build()).getId();
+        entityManager.clear();
+
+        assertEquals(eventTime, logRepo.findById(id).orElseThrow().getCreatedAt());
+    }
+
+    @Test
+    void stampsCreatedAtWhenMissing() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        AudithLog saved = logRepo.saveAndFlush(AudithLog.builder().authUserId(1L).eventType("LOGIN").build());
+        assertTrue(saved.getCreatedAt().isAfter(before));
+    }
 }
@@ -6,11 +6,13 @@ import com.kubit.authservice.domain.entity.AuthUser;
 import com.kubit.authservice.domain.entity.RefreshToken;
 import com.kubit.authservice.domain.repository.AuthUserRepository;
 import com.kubit.authservice.domain.repository.RefreshTokenRepository;
+import com.kubit.authservice.util.SplitRefreshToken;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
 
+import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -64,4 +66,79 @@ class RefreshTokenIntegrationTest {
 
         assertThrows(Exception.class, () -> tokenRepository.saveAndFlush(token));
     }
+
+    @Test
+    void shouldFindSplitTokenBySelector() {
+        AuthUser user = userRepository.saveAndFlush(AuthUser.builder()
+                                .email("selector@test.com")
+                                .passwordHash("secret")
+                                .status(AuthUserStatus.ACTIVE)
+                                .build());
+        String value = SplitRefreshToken.generate(new SecureRandom());
+        SplitRefreshToken split = SplitRefreshToken.parse(value).orElseThrow();
+        tokenRepository.saveAndFlush(RefreshToken.builder()
+            .selector(split.selector())
+            .verifierHash(split.verifierHash())
+            .expiresAt(LocalDateTime.ofInstant(Instant.now().plusSeconds(3600), ZoneId.systemDefault()))
+            .authUser(user)
+            .revoked(false)
+            .build());
+
+        RefreshToken found = tokenRepository.findWithUserAndRolesBySelector(split.selector()).orElseThrow();
+        assertNull(found.getToken());
+        assertTrue(split.matches(found.getVerifierHash()));
+        assertEquals(user.getId(), found.getAuthUser().getId());
+    }
+
+    @Test
+    void shouldRevokeActiveTokensInBulk() {
+        AuthUser user = userRepository.saveAndFlush(AuthUser.builder()
+                                .email("bulk@test.com")
+                                .passwordHash("secret")
+                                .status(AuthUserStatus.ACTIVE)
+                                .build());
+        AuthUser other = userRepository.saveAndFlush(AuthUser.builder()
+                                .email("other@test.com")
+                                .passwordHash("secret")
+                                .status(AuthUserStatus.ACTIVE)
+                                .build());
+        tokenRepository.save(token(user, "t1", "d1", false));
+        tokenRepository.save(token(user, "t2", "d1", false));
+        tokenRepository.save(token(user, "t3", "d2", false));
+        tokenRepository.save(token(user, "t4", "d2", true));
+        tokenRepository.save(token(other, "t5", "d1", false));
+
+        assertEquals(2, tokenRepository.revokeAllByAuthUserIdAndDeviceId(user.getId(), "d1"));
+        assertTrue(tokenRepository.findByToken("t1").orElseThrow().getRevoked());
+        assertFalse(tokenRepository.findByToken("t3").orElseThrow().getRevoked());
+
+        assertEquals(1, tokenRepository.revokeAllByAuthUserId(user.getId()));
+        assertTrue(tokenRepository.findByToken("t3").orElseThrow().getRevoked());
+        assertFalse(tokenRepository.findByToken("t5").orElseThrow().getRevoked());
+    }
+
+    @Test
+    void shouldRevokeOnlyOnceWhenActive() {
+        AuthUser user = userRepository.saveAndFlush(AuthUser.builder()
+                                .email("rotate@test.com")
+                                .passwordHash("secret")
+                                .status(AuthUserStatus.ACTIVE)
+                                .build());
+        RefreshToken active = tokenRepository.save(token(user, "r1", "d1", false));
+        RefreshToken revoked = tokenRepository.save(token(user, "r2", "d1", true));
+
+        assertEquals(1, tokenRepository.revokeIfActive(active.getId()));
+        assertEquals(0, tokenRepository.revokeIfActive(active.getId()));
+        assertEquals(0, tokenRepository.revokeIfActive(revoked.getId()));
+    }
+
+    private static RefreshToken token(AuthUser user, String value, String deviceId, boolean revoked) {
+        return RefreshToken.builder()
+            .token(value)
+            .deviceId(deviceId)
+            .expiresAt(LocalDateTime.ofInstant(Instant.now().plusSeconds(3600), ZoneId.systemDefault()))
+            .authUser(user)
+            .revoked(revoked)
+            .build();
+    }
 }
@@ -0,0 +1,85 @@
+package com.kubit.authservice.domain.entity;
+
+import com.kubit.authservice.domain.repository.AuthUserRepository;
+import com.kubit.authservice.domain.repository.RoleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sin transacción de prueba: cada llamada al repositorio usa su propio contexto de persistencia, como en un request.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private AuthUserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByEmail("cached@test.com").ifPresent(userRepository::delete);
+        roleRepository.findByName("ROLE_CACHED").ifPresent(roleRepository::delete);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void rolesOfUserAreServedFromSecondLevelCache() {
+        Role role = roleRepository.save(Role.builder().name("ROLE_CACHED").build());
+        Long userId = userRepository.save(AuthUser.builder()
+                .email("cached@test.com")
+                .passwordHash("secret")
+                .status(AuthUserStatus.ACTIVE)
+                .roles(Set.of(role))
+                .build()).getId();
+
+        // findById no trae los roles en el join: la colección LAZY se resuelve desde la caché si está
+        statistics.clear();
+        assertEquals(Integer.valueOf(1), transactionTemplate.execute(status ->
+                userRepository.findById(userId).orElseThrow().getRoles().size()));
+        long coldStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        assertEquals("ROLE_CACHED", transactionTemplate.execute(status ->
+                userRepository.findById(userId).orElseThrow().getRoles().iterator().next().getName()));
+
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertTrue(statistics.getPrepareStatementCount() < coldStatements,
+                "cold=" + coldStatements + " warm=" + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cacheRegionsAreConfigured() {
+        assertNotNull(statistics.getDomainDataRegionStatistics("com.kubit.authservice.domain.entity.Role"));
+        assertNotNull(statistics.getDomainDataRegionStatistics("com.kubit.authservice.domain.entity.AuthUser.roles"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.kubit.authservice.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+class AuditLogRetentionJobTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path archiveDir;
+
+    private long nextId = 1;
+
+    @Test
+    void archivesAndDeletesMonthsOutsideRetention() throws Exception {
+        insert(1L, "LOGIN", LocalDateTime.of(2025, 8, 3, 10, 0));
+        insert(2L, "LOGOUT", LocalDateTime.of(2025, 8, 20, 11, 0));
+        insert(1L, "LOGIN", LocalDateTime.of(2025, 9, 15, 9, 30));
+        insert(3L, "LOGIN", LocalDateTime.of(2025, 10, 1, 0, 0));
+        AuditLogRetentionJob job = new AuditLogRetentionJob(jdbcTemplate, mock(JobLockService.class), 12, 3, archiveDir.toString(), 1000);
+
+        long archived = job.archiveExpired(LocalDate.of(2026, 10, 17));
+
+        assertEquals(3, archived);
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from auth_audit_log", Integer.class));
+        List<String> august = readArchive(archiveDir.resolve("auth_audit_log-p202508.ndjson.gz"));
+        assertEquals(2, august.size());
+        assertTrue(august.get(0).contains("\"event_type\":\"LOGIN\""));
+        assertTrue(august.get(0).contains("\"created_at\":\"2025-08-03T10:00\""));
+        assertEquals(1, readArchive(archiveDir.resolve("auth_audit_log-p202509.ndjson.gz")).size());
+        assertFalse(Files.exists(archiveDir.resolve("auth_audit_log-p202510.ndjson.gz")));
+    }
+
+    @Test
+    void doesNothingWhenEverythingIsWithinRetention() {
+        insert(1L, "LOGIN", LocalDateTime.of(2026, 10, 1, 8, 0));
+        AuditLogRetentionJob job = new AuditLogRetentionJob(jdbcTemplate, mock(JobLockService.class), 12, 3, archiveDir.toString(), 1000);
+
+        assertEquals(0, job.archiveExpired(LocalDate.of(2026, 10, 17)));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from auth_audit_log", Integer.class));
+    }
+
+    @Test
+    void archivesAndDeletesInChunksUpToLastArchivedId() throws Exception {
+        for (int day = 1; day <= 5; day++) {
+            insert(1L, "LOGIN", LocalDateTime.of(2025, 8, day, 10, 0));
+        }
+        insert(1L, "LOGIN", LocalDateTime.of(2026, 10, 1, 8, 0));
+        JdbcTemplate spy = spy(jdbcTemplate);
+        // Una fila del mismo mes llega entre el archivado y el borrado: no está en el archivo, no se borra
+        boolean[] late = { false };
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0, String.class).startsWith("delete") && !late[0]) {
+                late[0] = true;
+                insert(2L, "LATE", LocalDateTime.of(2025, 8, 31, 23, 0));
+            }
+            return invocation.callRealMethod();
+        }).when(spy).update(anyString(), any(Object[].class));
+        AuditLogRetentionJob job = new AuditLogRetentionJob(spy, mock(JobLockService.class), 12, 3, archiveDir.toString(), 2);
+
+        assertEquals(5, job.archiveExpired(LocalDate.of(2026, 10, 17)));
+
+        List<String> august = readArchive(archiveDir.resolve("auth_audit_log-p202508.ndjson.gz"));
+        assertEquals(5, august.size());
+        assertTrue(august.get(4).contains("\"id\":5"));
+        List<String> remaining = jdbcTemplate.queryForList("select event_type from auth_audit_log order by id", String.class);
+        assertTrue(remaining.contains("LATE"));
+        assertEquals(2, remaining.size());
+        // 5 filas en trozos de 2: tres DELETE por rango de id, ninguno con la lista de ids del mes
+        verify(spy, times(3)).update(startsWith("delete from auth_audit_log where created_at >= ?"), any(Object[].class));
+    }
+
+    private void insert(Long userId, String eventType, LocalDateTime createdAt) {
+        jdbcTemplate.update("insert into auth_audit_log (id, auth_user_id, event_type, ip_address, created_at) values (?, ?, ?, ?, ?)",
+                nextId++, userId, eventType, "127.0.0.1", Timestamp.valueOf(createdAt));
+    }
+
+    private static List<String> readArchive(Path file) throws Exception {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return in.lines().toList();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.kubit.authservice.job;
+
+import com.kubit.authservice.domain.repository.JobLockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class JobLockServiceTest {
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Test
+    void onlyOneInstanceHoldsTheLock() {
+        JobLockService nodeA = new JobLockService(jobLockRepository);
+        JobLockService nodeB = new JobLockService(jobLockRepository);
+
+        assertTrue(nodeA.tryLock("purge", Duration.ofMinutes(5)));
+        assertFalse(nodeB.tryLock("purge", Duration.ofMinutes(5)));
+        assertTrue(nodeA.tryLock("purge", Duration.ofMinutes(5)));
+
+        nodeA.unlock("purge");
+        assertTrue(nodeB.tryLock("purge", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void expiredLeaseCanBeTakenOver() {
+        JobLockService nodeA = new JobLockService(jobLockRepository);
+        JobLockService nodeB = new JobLockService(jobLockRepository);
+
+        assertTrue(nodeA.tryLock("archive", Duration.ofMillis(-1)));
+        assertTrue(nodeB.tryLock("archive", Duration.ofMinutes(5)));
+        assertEquals(nodeB.getOwner(), jobLockRepository.findById("archive").orElseThrow().getLockedBy());
+    }
+
+    @Test
+    void runLockedSkipsWhenAnotherInstanceHoldsTheLock() {
+        JobLockService nodeA = new JobLockService(jobLockRepository);
+        JobLockService nodeB = new JobLockService(jobLockRepository);
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(nodeA.tryLock("job", Duration.ofMinutes(5)));
+        assertFalse(nodeB.runLocked("job", Duration.ofMinutes(5), runs::incrementAndGet));
+        nodeA.unlock("job");
+        assertTrue(nodeB.runLocked("job", Duration.ofMinutes(5), runs::incrementAndGet));
+        assertEquals(1, runs.get());
+    }
+}
@@ -0,0 +1,134 @@
+package com.kubit.authservice.job;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.AuthUserStatus;
+import com.kubit.authservice.domain.entity.RefreshToken;
+import com.kubit.authservice.domain.repository.AuthUserRepository;
+import com.kubit.authservice.domain.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+class RefreshTokenPurgeJobTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private AuthUserRepository authUserRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private AuthUser user;
+
+    @BeforeEach
+    void setUp() {
+        user = authUserRepository.saveAndFlush(AuthUser.builder()
+                .email("purge@test.com")
+                .passwordHash("secret")
+                .status(AuthUserStatus.ACTIVE)
+                .build());
+    }
+
+    @Test
+    void purgesExpiredAndLongRevokedTokensInChunks() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            save("expired" + i, now.minusHours(1), false);
+        }
+        RefreshToken oldRevoked = save("oldRevoked", now.plusHours(10), true);
+        jdbcTemplate.update("update refresh_token set created_at = ?, revoked_at = ? where id = ?",
+                Timestamp.valueOf(now.minusDays(3)), Timestamp.valueOf(now.minusDays(2)), oldRevoked.getId());
+        // Revocado antes de existir revoked_at: cuenta desde created_at
+        RefreshToken legacyRevoked = save("legacyRevoked", now.plusHours(10), true);
+        jdbcTemplate.update("update refresh_token set created_at = ? where id = ?",
+                Timestamp.valueOf(now.minusDays(2)), legacyRevoked.getId());
+        // Creado hace días pero revocado recién (p. ej. rotación): se conserva
+        RefreshToken oldRecentlyRevoked = save("oldRecentlyRevoked", now.plusHours(10), false);
+        jdbcTemplate.update("update refresh_token set created_at = ? where id = ?",
+                Timestamp.valueOf(now.minusDays(2)), oldRecentlyRevoked.getId());
+        assertEquals(1, refreshTokenRepository.revokeIfActive(oldRecentlyRevoked.getId()));
+        save("active", now.plusHours(10), false);
+
+        RefreshTokenPurgeJob job = job(2);
+        long purged = job.purge();
+
+        assertEquals(7, purged);
+        assertEquals(2, refreshTokenRepository.count());
+        assertTrue(refreshTokenRepository.findByToken("active").isPresent());
+        assertTrue(refreshTokenRepository.findByToken("oldRecentlyRevoked").isPresent());
+        assertEquals(7.0, registry.get("auth.refresh_token.purged").counter().count());
+        assertEquals(0, job.getLagSeconds());
+        assertEquals(0.0, registry.get("auth.refresh_token.purge.lag").gauge().value());
+    }
+
+    @Test
+    void lagCountsRevokedBacklogFromRevokedAtPlusRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        save("expired", now.minusHours(1), false);
+        RefreshToken revoked = save("revoked", now.plusHours(10), true);
+        jdbcTemplate.update("update refresh_token set revoked_at = ? where id = ?",
+                Timestamp.valueOf(now.minusDays(3)), revoked.getId());
+        ObjectProvider<MeterRegistry> provider = registryProvider();
+        // Lease 0: sin presupuesto para borrar, solo mide lo pendiente
+        RefreshTokenPurgeJob job = new RefreshTokenPurgeJob(refreshTokenRepository, mock(JobLockService.class),
+                provider, 10, 0, 24, 0);
+
+        assertEquals(0, job.purge());
+
+        // Revocado hace 3 días con retención de 24 h: purgable desde hace 2 días, más que el expirado hace 1 h
+        long lag = job.getLagSeconds();
+        assertTrue(lag >= 2 * 86400 && lag < 2 * 86400 + 60, "lag=" + lag);
+    }
+
+    @Test
+    void runSkipsWhenLockIsHeldElsewhere() {
+        save("expired", LocalDateTime.now().minusHours(1), false);
+        JobLockService lock = mock(JobLockService.class);
+        when(lock.runLocked(any(), any(), any())).thenReturn(false);
+
+        job(lock, 10).run();
+
+        assertEquals(1, refreshTokenRepository.count());
+    }
+
+    private RefreshTokenPurgeJob job(int chunkSize) {
+        JobLockService lock = mock(JobLockService.class);
+        return job(lock, chunkSize);
+    }
+
+    private RefreshTokenPurgeJob job(JobLockService lock, int chunkSize) {
+        return new RefreshTokenPurgeJob(refreshTokenRepository, lock, registryProvider(), chunkSize, 0, 24, 600000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<MeterRegistry> registryProvider() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any(Supplier.class))).thenReturn(registry);
+        return provider;
+    }
+
+    private RefreshToken save(String token, LocalDateTime expiresAt, boolean revoked) {
+        return refreshTokenRepository.saveAndFlush(RefreshToken.builder()
+                .authUser(user)
+                .token(token)
+                .deviceId("d1")
+                .expiresAt(expiresAt)
+                .revoked(revoked)
+                .build());
+    }
+}
@@ -0,0 +1,123 @@
+package com.kubit.authservice.service.impl;
+
+import com.kubit.authservice.domain.entity.AudithLog;
+import com.kubit.authservice.domain.repository.AudithLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogServiceImplTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AudithLogRepository audithLogRepository = mock(AudithLogRepository.class);
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @TempDir
+    Path tempDir;
+
+    @SuppressWarnings("unchecked")
+    private AuditLogServiceImpl service(int capacity, int batchSize, AuditLogServiceImpl.OverflowPolicy overflow) {
+        when(audithLogRepository.saveAll(anyIterable())).thenAnswer(inv -> {
+            batchSizes.add(((Collection<?>) inv.getArgument(0)).size());
+            return List.of();
+        });
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any(Supplier.class))).thenReturn(registry);
+        return new AuditLogServiceImpl(audithLogRepository, mock(PlatformTransactionManager.class), provider, capacity, batchSize, 50, 5000, overflow,
+                tempDir.resolve("spill.tsv").toString());
+    }
+
+    @Test
+    void writesQueuedEventsInBatchesAndDrainsOnClose() {
+        AuditLogServiceImpl service = service(100, 4, AuditLogServiceImpl.OverflowPolicy.DROP);
+        service.start();
+        for (int i = 0; i < 10; i++) {
+            service.record(event(i));
+        }
+
+        service.close();
+
+        assertEquals(10, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 4));
+        assertEquals(10.0, registry.get("auth.audit.written").counter().count());
+        assertEquals(0, service.queueDepth());
+    }
+
+    @Test
+    void dropsAndCountsWhenQueueIsFull() {
+        AuditLogServiceImpl service = service(2, 10, AuditLogServiceImpl.OverflowPolicy.DROP);
+
+        for (int i = 0; i < 5; i++) {
+            service.record(event(i));
+        }
+
+        assertEquals(2, service.queueDepth());
+        assertEquals(3.0, registry.get("auth.audit.dropped").counter().count());
+    }
+
+    @Test
+    void spillsOverflowToDiskAndReplaysIt() throws Exception {
+        AuditLogServiceImpl service = service(1, 10, AuditLogServiceImpl.OverflowPolicy.SPILL);
+
+        service.record(event(1));
+        service.record(event(2));
+        service.record(event(3));
+
+        assertEquals(2, Files.readAllLines(tempDir.resolve("spill.tsv")).size());
+        assertEquals(2.0, registry.get("auth.audit.spilled").counter().count());
+
+        service.start();
+        service.close();
+
+        assertEquals(3, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertFalse(Files.exists(tempDir.resolve("spill.tsv")));
+        assertFalse(Files.exists(tempDir.resolve("spill.tsv.replay")));
+    }
+
+    @Test
+    void spillsEventsRecordedAfterCloseInsteadOfWritingInline() throws Exception {
+        AuditLogServiceImpl service = service(10, 10, AuditLogServiceImpl.OverflowPolicy.DROP);
+        service.start();
+        service.close();
+
+        service.record(event(1));
+
+        verify(audithLogRepository, never()).saveAll(anyIterable());
+        assertEquals(1, Files.readAllLines(tempDir.resolve("spill.tsv")).size());
+        assertEquals(1.0, registry.get("auth.audit.spilled").counter().count());
+
+        // El próximo arranque lo reinserta
+        AuditLogServiceImpl restarted = service(10, 10, AuditLogServiceImpl.OverflowPolicy.DROP);
+        restarted.start();
+        restarted.close();
+        assertEquals(1, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void setsEventTimeWhenMissing() {
+        AuditLogServiceImpl service = service(10, 10, AuditLogServiceImpl.OverflowPolicy.DROP);
+        AudithLog log = event(1);
+
+        service.record(log);
+
+        assertNotNull(log.getCreatedAt());
+    }
+
+    private static AudithLog event(long userId) {
+        return AudithLog.builder().authUserId(userId).eventType("LOGIN").ipAddress("127.0.0.1").build();
+    }
+}
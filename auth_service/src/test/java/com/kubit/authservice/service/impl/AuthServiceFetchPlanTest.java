@@ -0,0 +1,109 @@
+package com.kubit.authservice.service.impl;
+
+import com.kubit.authservice.domain.entity.*;
+import com.kubit.authservice.domain.repository.AuthUserRepository;
+import com.kubit.authservice.domain.repository.RefreshTokenRepository;
+import com.kubit.authservice.domain.repository.RoleRepository;
+import com.kubit.authservice.service.AuditLogService;
+import com.kubit.authservice.service.AuthService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cantidad de sentencias SQL por operación. Sin transacción de prueba, igual que en un request real:
+ * una asociación LAZY que no venga en el fetch plan falla en vez de sumar SELECTs.
+ */
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AuthServiceFetchPlanTest {
+
+    private static final String EMAIL = "fetchplan@test.com";
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private AuthUserRepository userRepository;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    // La auditoría se escribe fuera del request (write-behind); aquí solo cuenta el camino del request
+    @MockitoBean
+    private AuditLogService auditLogService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        if (roleRepository.findByName("ROLE_USER").isEmpty()) {
+            roleRepository.save(Role.builder().name("ROLE_USER").build());
+        }
+        authService.register(RegisterRequest.builder().email(EMAIL).password("secret").build());
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByEmail(EMAIL).ifPresent(user -> {
+            refreshTokenRepository.deleteAllInBatch();
+            userRepository.delete(user);
+        });
+    }
+
+    @Test
+    void login_loadsUserAndRolesInOneSelect() {
+        statistics.clear();
+        UserLoginResponse response = authService.login(login());
+
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        // SELECT usuario+roles, UPDATE revocación, INSERT refresh token
+        assertEquals(3, statistics.getPrepareStatementCount(), statistics.toString());
+        assertEquals(1, response.getUser().getRoles().size());
+    }
+
+    @Test
+    void refreshToken_loadsTokenUserAndRolesInOneSelect() {
+        UserLoginResponse login = authService.login(login());
+
+        statistics.clear();
+        UserLoginResponse refreshed = authService.refreshToken(login.getRefreshToken(), "dev1", "127.0.0.1");
+
+        assertEquals(1, statistics.getQueryExecutionCount());
+        // SELECT token+usuario+roles, UPDATE del token viejo, INSERT del nuevo
+        assertEquals(3, statistics.getPrepareStatementCount(), statistics.toString());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(1, refreshed.getUser().getRoles().size());
+    }
+
+    @Test
+    void logout_doesNotLoadUser() {
+        UserLoginResponse login = authService.login(login());
+
+        statistics.clear();
+        authService.logout(login.getRefreshToken(), null, "dev1", "127.0.0.1");
+
+        // SELECT token (usuario como proxy), UPDATE
+        assertEquals(2, statistics.getPrepareStatementCount(), statistics.toString());
+        assertEquals(0, statistics.getEntityFetchCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    private static LoginRequest login() {
+        return LoginRequest.builder().email(EMAIL).password("secret").deviceId("dev1").ipAddress("127.0.0.1").build();
+    }
+}
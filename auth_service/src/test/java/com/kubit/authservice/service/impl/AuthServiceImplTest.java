@@ -2,11 +2,24 @@ package com.kubit.authservice.service.impl;
 
 import com.kubit.authservice.domain.entity.*;
 import com.kubit.authservice.domain.repository.*;
+import com.kubit.authservice.service.AuditLogService;
+import com.kubit.authservice.util.AccessTokenDenylist;
+import com.kubit.authservice.util.AuthMetrics;
 import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.RefreshRotationCache;
+import com.kubit.authservice.util.RoleCatalog;
+import com.kubit.authservice.util.RoleRef;
+import com.kubit.authservice.util.SplitRefreshToken;
+import com.kubit.authservice.util.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import java.security.SecureRandom;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -16,11 +29,16 @@ import static org.mockito.Mockito.*;
 class AuthServiceImplTest {
 
     @Mock private AuthUserRepository authUserRepository;
-    @Mock private RoleRepository roleRepository;
+    @Mock private RoleCatalog roleCatalog;
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private RefreshTokenRepository refreshTokenRepository;
     @Mock private JwtUtil jwtUtil;
-    @Mock private AudithLogRepository audithLogRepository;
+    @Mock private AuditLogService auditLogService;
+    @Mock private AccessTokenDenylist accessTokenDenylist;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    @Spy private AuthMetrics authMetrics = new AuthMetrics(registry);
+    @Spy private RefreshRotationCache refreshRotationCache = new RefreshRotationCache(10000, 1000);
+    @Spy private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
 
     @InjectMocks private AuthServiceImpl authService;
 
@@ -33,13 +51,15 @@ class AuthServiceImplTest {
         role = Role.builder().id(1L).name("ROLE_USER").build();
         user = AuthUser.builder().id(1L).email("t@kiubit.mx")
                 .passwordHash("abc").status(AuthUserStatus.ACTIVE).roles(Set.of(role)).build();
+        when(jwtUtil.generateRefreshToken(any())).thenAnswer(invocation -> newRefreshToken());
+        when(refreshTokenRepository.revokeIfActive(any())).thenReturn(1);
     }
 
     @Test
     void register_successful() {
         RegisterRequest req = RegisterRequest.builder().email("e@x.com").password("123").build();
         when(authUserRepository.existsByEmail(req.getEmail())).thenReturn(false);
-        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(role));
+        when(roleCatalog.findByName("ROLE_USER")).thenReturn(Optional.of(RoleRef.of(role)));
         when(passwordEncoder.encode("123")).thenReturn("hashed");
         when(authUserRepository.save(any())).thenReturn(user);
         AuthUser result = authService.register(req);
@@ -60,6 +80,34 @@ class AuthServiceImplTest {
         when(passwordEncoder.matches("pw", user.getPasswordHash())).thenReturn(true);
         UserLoginResponse result = authService.login(req);
         assertEquals(user, result.getUser());
+        verify(refreshTokenRepository).revokeAllByAuthUserIdAndDeviceId(user.getId(), null);
+    }
+
+    @Test
+    void login_rehashesOutdatedPassword() {
+        LoginRequest req = LoginRequest.builder().email(user.getEmail()).password("pw").build();
+        when(authUserRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("pw", "abc")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("abc")).thenReturn(true);
+        when(passwordEncoder.encode("pw")).thenReturn("{bcrypt}new");
+
+        authService.login(req);
+
+        assertEquals("{bcrypt}new", user.getPasswordHash());
+        verify(authUserRepository).save(user);
+    }
+
+    @Test
+    void login_afterLogoutAll_issuesTokenAfterCutoff() {
+        LoginRequest req = LoginRequest.builder().email(user.getEmail()).password("pw").build();
+        Instant minIssuedAt = Instant.now().plusSeconds(1);
+        when(authUserRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("pw", user.getPasswordHash())).thenReturn(true);
+        when(accessTokenDenylist.minimumIssuedAt("1")).thenReturn(minIssuedAt);
+
+        authService.login(req);
+
+        verify(jwtUtil).generateToken(user, minIssuedAt);
     }
 
     @Test
@@ -72,26 +120,26 @@ class AuthServiceImplTest {
     @Test
     void refreshToken_oldTokenRevoked_generatesNew_andAudits() {
         String oldTokenValue = "token1";
-        String newTokenValue = "token2";
+        String newTokenValue = newRefreshToken();
         String deviceId = "dev1";
         String ip = "127.0.0.1";
         RefreshToken oldToken = RefreshToken.builder()
+                .id(10L)
                 .token(oldTokenValue)
                 .revoked(false)
                 .expiresAt(LocalDateTime.now().plusMinutes(10))
                 .authUser(user)
                 .deviceId(deviceId)
                 .build();
-        when(refreshTokenRepository.findByToken(oldTokenValue)).thenReturn(Optional.of(oldToken));
-        when(jwtUtil.generateToken(user)).thenReturn("jwtNew");
+        when(refreshTokenRepository.findWithUserAndRolesByToken(oldTokenValue)).thenReturn(Optional.of(oldToken));
+        when(jwtUtil.generateToken(eq(user), any())).thenReturn("jwtNew");
         when(jwtUtil.generateRefreshToken(user)).thenReturn(newTokenValue);
-        when(audithLogRepository.save(any())).thenReturn(null);
         UserLoginResponse resp = authService.refreshToken(oldTokenValue, deviceId, ip);
         assertEquals(user, resp.getUser());
         assertEquals("jwtNew", resp.getAccessToken());
         assertEquals(newTokenValue, resp.getRefreshToken());
-        assertTrue(oldToken.getRevoked());
-        verify(audithLogRepository, atLeastOnce()).save(any());
+        verify(refreshTokenRepository).revokeIfActive(10L);
+        verify(auditLogService).record(any());
     }
 
     @Test
@@ -104,9 +152,143 @@ class AuthServiceImplTest {
                 .authUser(user)
                 .deviceId(deviceId)
                 .build();
-        when(refreshTokenRepository.findByToken(tokenVal)).thenReturn(Optional.of(old));
+        when(refreshTokenRepository.findWithUserAndRolesByToken(tokenVal)).thenReturn(Optional.of(old));
         assertThrows(IllegalArgumentException.class,
                 () -> authService.refreshToken(tokenVal, deviceId, "127.0.0.1"));
+        assertEquals(1.0, outcome("refreshToken", "revoked"));
+    }
+
+    @Test
+    void refreshToken_splitFormat_looksUpBySelectorAndChecksVerifier() {
+        String value = newRefreshToken();
+        SplitRefreshToken split = SplitRefreshToken.parse(value).orElseThrow();
+        RefreshToken stored = RefreshToken.builder().id(10L).selector(split.selector()).verifierHash(split.verifierHash())
+                .revoked(false).expiresAt(LocalDateTime.now().plusMinutes(10)).authUser(user).deviceId("dev1").build();
+        when(refreshTokenRepository.findWithUserAndRolesBySelector(split.selector())).thenReturn(Optional.of(stored));
+
+        // Mismo selector, otro verificador: la fila existe pero el hash no coincide
+        String forged = value.substring(0, value.indexOf('.') + 1) + newRefreshToken().substring(value.indexOf('.') + 1);
+        assertThrows(IllegalArgumentException.class, () -> authService.refreshToken(forged, "dev1", "ip"));
+        verify(refreshTokenRepository, never()).revokeIfActive(any());
+
+        UserLoginResponse resp = authService.refreshToken(value, "dev1", "ip");
+        verify(refreshTokenRepository).revokeIfActive(10L);
+        verify(refreshTokenRepository, never()).findWithUserAndRolesByToken(any());
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        RefreshToken issued = saved.getValue();
+        assertNull(issued.getToken());
+        assertTrue(SplitRefreshToken.parse(resp.getRefreshToken()).orElseThrow().matches(issued.getVerifierHash()));
+    }
+
+    @Test
+    void refreshToken_concurrentLoser_getsWinnersPair() {
+        RefreshToken old = RefreshToken.builder().id(10L).token("token").revoked(false)
+                .expiresAt(LocalDateTime.now().plusMinutes(10)).authUser(user).deviceId("dev1").build();
+        when(refreshTokenRepository.findWithUserAndRolesByToken("token")).thenReturn(Optional.of(old));
+        when(jwtUtil.generateToken(eq(user), any())).thenReturn("jwtNew");
+        // Ambas leyeron la fila vigente; solo la primera afecta el UPDATE condicional
+        when(refreshTokenRepository.revokeIfActive(10L)).thenReturn(1, 0);
+
+        UserLoginResponse winner = authService.refreshToken("token", "dev1", "ip");
+        UserLoginResponse loser = authService.refreshToken("token", "dev1", "ip");
+
+        assertSame(winner, loser);
+        verify(refreshTokenRepository, times(1)).save(any());
+        verify(jwtUtil, times(1)).generateToken(eq(user), any());
+        assertEquals(1.0, outcome("refreshToken", "success"));
+        assertEquals(1.0, outcome("refreshToken", "grace"));
+    }
+
+    @Test
+    void refreshToken_revokedByRecentRotation_returnsSamePairWithoutUpdate() {
+        RefreshToken old = RefreshToken.builder().id(10L).token("token").revoked(false)
+                .expiresAt(LocalDateTime.now().plusMinutes(10)).authUser(user).deviceId("dev1").build();
+        RefreshToken revoked = RefreshToken.builder().id(10L).token("token").revoked(true)
+                .expiresAt(LocalDateTime.now().plusMinutes(10)).authUser(user).deviceId("dev1").build();
+        when(refreshTokenRepository.findWithUserAndRolesByToken("token"))
+                .thenReturn(Optional.of(old), Optional.of(revoked));
+
+        UserLoginResponse first = authService.refreshToken("token", "dev1", "ip");
+        UserLoginResponse second = authService.refreshToken("token", "dev1", "ip");
+
+        assertSame(first, second);
+        verify(refreshTokenRepository, times(1)).revokeIfActive(10L);
+        // Otro dispositivo con el mismo token no entra por la ventana de gracia
+        assertThrows(IllegalArgumentException.class, () -> authService.refreshToken("token", "dev2", "ip"));
+    }
+
+    @Test
+    void refreshToken_lostUpdateWithoutRotationHere_isRejected() {
+        RefreshToken old = RefreshToken.builder().id(10L).token("token").revoked(false)
+                .expiresAt(LocalDateTime.now().plusMinutes(10)).authUser(user).deviceId("dev1").build();
+        when(refreshTokenRepository.findWithUserAndRolesByToken("token")).thenReturn(Optional.of(old));
+        when(refreshTokenRepository.revokeIfActive(10L)).thenReturn(0);
+
+        assertThrows(IllegalArgumentException.class, () -> authService.refreshToken("token", "dev1", "ip"));
+        verify(refreshTokenRepository, never()).save(any());
+        assertEquals(1.0, outcome("refreshToken", "revoked"));
+    }
+
+    @Test
+    void refreshToken_lostUpdate_waitsOutsideTransaction() {
+        RefreshToken old = RefreshToken.builder().id(10L).token("token").revoked(false)
+                .expiresAt(LocalDateTime.now().plusMinutes(10)).authUser(user).deviceId("dev1").build();
+        when(refreshTokenRepository.findWithUserAndRolesByToken("token")).thenReturn(Optional.of(old));
+        when(refreshTokenRepository.revokeIfActive(10L)).thenReturn(0);
+        boolean[] inTransaction = {false};
+        doAnswer(invocation -> {
+            inTransaction[0] = true;
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction[0] = false;
+            }
+        }).when(transactionOperations).execute(any());
+        List<Boolean> awaitedInTransaction = new ArrayList<>();
+        doAnswer(invocation -> {
+            awaitedInTransaction.add(inTransaction[0]);
+            return invocation.callRealMethod();
+        }).when(refreshRotationCache).await(10L);
+
+        assertThrows(IllegalArgumentException.class, () -> authService.refreshToken("token", "dev1", "ip"));
+        assertEquals(List.of(false), awaitedInTransaction);
+    }
+
+    @Test
+    void refreshToken_countsExpiredAndDeviceMismatch() {
+        RefreshToken expired = RefreshToken.builder().token("old").revoked(false)
+                .expiresAt(LocalDateTime.now().minusMinutes(1)).authUser(user).deviceId("dev1").build();
+        RefreshToken valid = RefreshToken.builder().token("other").revoked(false)
+                .expiresAt(LocalDateTime.now().plusMinutes(10)).authUser(user).deviceId("dev1").build();
+        when(refreshTokenRepository.findWithUserAndRolesByToken("old")).thenReturn(Optional.of(expired));
+        when(refreshTokenRepository.findWithUserAndRolesByToken("other")).thenReturn(Optional.of(valid));
+
+        assertThrows(IllegalArgumentException.class, () -> authService.refreshToken("old", "dev1", "ip"));
+        assertThrows(IllegalArgumentException.class, () -> authService.refreshToken("other", "dev2", "ip"));
+
+        assertEquals(1.0, outcome("refreshToken", "expired"));
+        assertEquals(1.0, outcome("refreshToken", "device_mismatch"));
+        assertEquals(2, registry.get("auth.operation").tag("method", "refreshToken").timer().count());
+    }
+
+    @Test
+    void login_recordsOutcomeAndPhases() {
+        LoginRequest req = LoginRequest.builder().email(user.getEmail()).password("pw").build();
+        when(authUserRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("pw", user.getPasswordHash())).thenReturn(true);
+        when(passwordEncoder.matches("bad", user.getPasswordHash())).thenReturn(false);
+
+        authService.login(req);
+        assertThrows(IllegalArgumentException.class, () -> authService.login(
+                LoginRequest.builder().email(user.getEmail()).password("bad").build()));
+
+        assertEquals(1.0, outcome("login", "success"));
+        assertEquals(1.0, outcome("login", "bad_credentials"));
+        assertEquals(2, registry.get("auth.operation.phase").tag("phase", "password").timer().count());
+        assertEquals(2, registry.get("auth.operation.phase").tag("phase", "mint").timer().count());
+        assertEquals(1, registry.get("auth.operation.phase").tag("phase", "persist").timer().count());
+        assertEquals(1, registry.get("auth.operation.phase").tag("phase", "audit").timer().count());
     }
 
     @Test
@@ -116,20 +298,38 @@ class AuthServiceImplTest {
         RefreshToken rt = RefreshToken.builder().token(tokenVal).revoked(false)
                 .authUser(user).deviceId(deviceId).build();
         when(refreshTokenRepository.findByToken(tokenVal)).thenReturn(Optional.of(rt));
-        when(audithLogRepository.save(any())).thenReturn(null);
-        authService.logout(tokenVal, deviceId, "ipx");
+        authService.logout(tokenVal, null, deviceId, "ipx");
         assertTrue(rt.getRevoked());
-        verify(audithLogRepository, atLeastOnce()).save(any());
+        verify(auditLogService).record(any());
+    }
+
+    @Test
+    void logout_deniesCurrentAccessToken() {
+        RefreshToken rt = RefreshToken.builder().token("token").revoked(false)
+                .authUser(user).deviceId("dev1").build();
+        VerifiedToken access = new VerifiedToken("1", user.getEmail(), List.of("ROLE_USER"), "ACTIVE",
+                UUID.randomUUID().toString(), null, null);
+        when(refreshTokenRepository.findByToken("token")).thenReturn(Optional.of(rt));
+        when(jwtUtil.verify("jwt")).thenReturn(Optional.of(access));
+        authService.logout("token", "jwt", "dev1", "ipx");
+        verify(accessTokenDenylist).revoke(access);
     }
 
     @Test
     void logoutAllForUser_revokesAll_andAudits() {
-        RefreshToken rt1 = RefreshToken.builder().revoked(false).authUser(user).deviceId("d1").build();
-        RefreshToken rt2 = RefreshToken.builder().revoked(false).authUser(user).deviceId("d2").build();
-        when(refreshTokenRepository.findAll()).thenReturn(List.of(rt1, rt2));
-        when(audithLogRepository.save(any())).thenReturn(null);
+        when(refreshTokenRepository.revokeAllByAuthUserId(user.getId())).thenReturn(2);
         authService.logoutAllForUser(user.getId(), "ip1");
-        assertTrue(rt1.getRevoked() && rt2.getRevoked());
-        verify(audithLogRepository, atLeastOnce()).save(any());
+        verify(refreshTokenRepository).revokeAllByAuthUserId(user.getId());
+        verify(refreshTokenRepository, never()).findAll();
+        verify(accessTokenDenylist).revokeAllForSubject("1");
+        verify(auditLogService).record(any());
+    }
+
+    private double outcome(String method, String outcome) {
+        return registry.get("auth.operation.outcome").tag("method", method).tag("outcome", outcome).counter().count();
+    }
+
+    private static String newRefreshToken() {
+        return SplitRefreshToken.generate(new SecureRandom());
     }
 }
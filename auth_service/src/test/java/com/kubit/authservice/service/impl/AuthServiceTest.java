@@ -4,16 +4,22 @@ import com.kubit.authservice.domain.entity.AuthUser;
 import com.kubit.authservice.domain.entity.AuthUserStatus;
 import com.kubit.authservice.domain.entity.RegisterRequest;
 import com.kubit.authservice.domain.entity.Role;
-import com.kubit.authservice.domain.repository.AudithLogRepository;
+import com.kubit.authservice.service.AuditLogService;
 import com.kubit.authservice.domain.repository.AuthUserRepository;
 import com.kubit.authservice.domain.repository.RefreshTokenRepository;
-import com.kubit.authservice.domain.repository.RoleRepository;
+import com.kubit.authservice.util.AccessTokenDenylist;
+import com.kubit.authservice.util.AuthMetrics;
 import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.RefreshRotationCache;
+import com.kubit.authservice.util.RoleCatalog;
+import com.kubit.authservice.util.RoleRef;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.util.Optional;
 
@@ -23,22 +29,26 @@ import static org.mockito.Mockito.*;
 class AuthServiceTest {
 
     private AuthUserRepository authUserRepository;
-    private RoleRepository roleRepository;
+    private RoleCatalog roleCatalog;
     private PasswordEncoder passwordEncoder;
     private AuthServiceImpl authService;
     private RefreshTokenRepository refreshTokenRepository;
     private JwtUtil jwtUtil;
-    private AudithLogRepository audithLogRepository;
+    private AuditLogService auditLogService;
+    private AccessTokenDenylist accessTokenDenylist;
 
     @BeforeEach
     void setUp() {
         authUserRepository = mock(AuthUserRepository.class);
-        roleRepository = mock(RoleRepository.class);
+        roleCatalog = mock(RoleCatalog.class);
         passwordEncoder = mock(PasswordEncoder.class);
         refreshTokenRepository = mock(RefreshTokenRepository.class);
         jwtUtil = mock(JwtUtil.class);
-        audithLogRepository = mock(AudithLogRepository.class);
-        authService = new AuthServiceImpl(authUserRepository, roleRepository, passwordEncoder, refreshTokenRepository, jwtUtil, audithLogRepository);
+        auditLogService = mock(AuditLogService.class);
+        accessTokenDenylist = mock(AccessTokenDenylist.class);
+        authService = new AuthServiceImpl(authUserRepository, roleCatalog, passwordEncoder, refreshTokenRepository, jwtUtil, auditLogService, accessTokenDenylist,
+                new AuthMetrics(new SimpleMeterRegistry()), new RefreshRotationCache(10000, 1000),
+                TransactionOperations.withoutTransaction());
     }
 
     @Test
@@ -51,7 +61,7 @@ class AuthServiceTest {
         Role userRole = Role.builder().name("ROLE_USER").build();
 
         when(authUserRepository.existsByEmail(request.getEmail())).thenReturn(false);
-        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(userRole));
+        when(roleCatalog.findByName("ROLE_USER")).thenReturn(Optional.of(RoleRef.of(userRole)));
         when(passwordEncoder.encode(request.getPassword())).thenReturn("hashed1234");
 
         authService.register(request);
@@ -64,6 +74,8 @@ class AuthServiceTest {
         assertEquals("hashed1234", savedUser.getPasswordHash());
         assertEquals(AuthUserStatus.ACTIVE, savedUser.getStatus());
         assertTrue(savedUser.getRoles().contains(userRole));
+        // Cada registro recibe su propia entidad, no una compartida
+        assertNotSame(userRole, savedUser.getRoles().iterator().next());
     }
 
     @Test
@@ -90,7 +102,7 @@ class AuthServiceTest {
                 .email("test@email.com")
                 .password("1234").build();
         when(authUserRepository.existsByEmail(request.getEmail())).thenReturn(false);
-        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.empty());
+        when(roleCatalog.findByName("ROLE_USER")).thenReturn(Optional.empty());
 
         IllegalStateException ex = assertThrows(IllegalStateException.class, () -> {
             authService.register(request);
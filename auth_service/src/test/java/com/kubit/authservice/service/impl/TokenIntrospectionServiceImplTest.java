@@ -0,0 +1,97 @@
+package com.kubit.authservice.service.impl;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.AuthUserStatus;
+import com.kubit.authservice.domain.entity.Role;
+import com.kubit.authservice.domain.entity.TokenIntrospection;
+import com.kubit.authservice.util.AccessTokenDenylist;
+import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.VerifiedTokenCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenIntrospectionServiceImplTest {
+
+    private ExecutorService executor;
+    private MeterRegistry registry;
+    private JwtUtil jwtUtil;
+    private TokenIntrospectionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        registry = new SimpleMeterRegistry();
+        jwtUtil = new JwtUtil("SuperClaveJWTParaFirmaSegura123456SuperClaveJWTParaFirmaSegura123456", 3600_000, 604800_000);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("meterRegistry", registry);
+        service = new TokenIntrospectionServiceImpl(new VerifiedTokenCache(jwtUtil, AccessTokenDenylist.inMemory(3600_000), 1000), executor,
+                beans.getBeanProvider(MeterRegistry.class), 50, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void introspectsLargeBatchInOrder() {
+        List<String> tokens = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            tokens.add(id % 3 == 0 ? "not-a-jwt-" + id : jwtUtil.generateToken(user(id)));
+        }
+
+        List<TokenIntrospection> results = service.introspect(tokens);
+
+        assertEquals(30, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            long id = i + 1;
+            TokenIntrospection result = results.get(i);
+            if (id % 3 == 0) {
+                assertFalse(result.isActive());
+                assertNull(result.getSub());
+            } else {
+                assertTrue(result.isActive());
+                assertEquals(String.valueOf(id), result.getSub());
+                assertEquals(List.of("ROLE_USER"), result.getRoles());
+                assertNotNull(result.getExp());
+            }
+        }
+        assertEquals(1, registry.get("auth.introspect.batch").timer().count());
+        assertEquals(30, registry.get("auth.introspect.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void rejectsOversizedBatch() {
+        List<String> tokens = Collections.nCopies(51, "t");
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.introspect(tokens));
+        assertEquals("Too many tokens, max 50", ex.getMessage());
+    }
+
+    @Test
+    void emptyBatchReturnsEmptyResult() {
+        assertTrue(service.introspect(List.of()).isEmpty());
+        assertTrue(service.introspect(null).isEmpty());
+    }
+
+    private AuthUser user(long id) {
+        return AuthUser.builder()
+                .id(id)
+                .email("u" + id + "@kiubit.mx")
+                .status(AuthUserStatus.ACTIVE)
+                .roles(Set.of(Role.builder().name("ROLE_USER").build()))
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.kubit.authservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokenDenylistTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void revokesSingleTokenByJti() {
+        AccessTokenDenylist denylist = AccessTokenDenylist.inMemory(3600_000);
+        VerifiedToken revoked = token("1", Instant.now(), Instant.now().plusSeconds(600));
+        VerifiedToken other = token("1", Instant.now(), Instant.now().plusSeconds(600));
+
+        denylist.revoke(revoked);
+
+        assertTrue(denylist.isRevoked(revoked));
+        assertFalse(denylist.isRevoked(other));
+    }
+
+    @Test
+    void logoutAllRevokesOnlyTokensIssuedBefore() {
+        AccessTokenDenylist denylist = AccessTokenDenylist.inMemory(3600_000);
+        VerifiedToken before = token("5", Instant.now().minusSeconds(30), Instant.now().plusSeconds(600));
+        VerifiedToken after = token("5", Instant.now().plusSeconds(5), Instant.now().plusSeconds(600));
+        VerifiedToken otherUser = token("6", Instant.now().minusSeconds(30), Instant.now().plusSeconds(600));
+
+        denylist.revokeAllForSubject("5");
+
+        assertTrue(denylist.isRevoked(before));
+        assertFalse(denylist.isRevoked(after));
+        assertFalse(denylist.isRevoked(otherUser));
+    }
+
+    @Test
+    void loginInSameSecondAsLogoutAllIsNotRevoked() {
+        AccessTokenDenylist denylist = AccessTokenDenylist.inMemory(3600_000);
+        assertNull(denylist.minimumIssuedAt("5"));
+
+        denylist.revokeAllForSubject("5");
+        // iat truncado al segundo del logout-all: puede ser anterior, se revoca
+        Instant sameSecond = Instant.ofEpochSecond(Instant.now().getEpochSecond());
+        VerifiedToken before = token("5", sameSecond, Instant.now().plusSeconds(600));
+        // Login inmediato: el token nuevo lleva el primer segundo posterior al corte
+        Instant minIssuedAt = denylist.minimumIssuedAt("5");
+        VerifiedToken after = token("5", minIssuedAt, Instant.now().plusSeconds(600));
+
+        assertTrue(denylist.isRevoked(before));
+        assertFalse(denylist.isRevoked(after));
+        assertTrue(minIssuedAt.isAfter(Instant.now().minusSeconds(1)));
+        assertTrue(!minIssuedAt.isAfter(Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void expiredEntriesArePurged() {
+        AccessTokenDenylist denylist = AccessTokenDenylist.inMemory(3600_000);
+        denylist.revoke(token("1", Instant.now().minusSeconds(60), Instant.now().minusSeconds(1)));
+        denylist.revoke(token("1", Instant.now(), Instant.now().plusSeconds(600)));
+
+        denylist.purgeExpired();
+
+        assertEquals(1, denylist.size());
+    }
+
+    @Test
+    void revocationsSurviveRestartThroughMappedFile() {
+        String file = dir.resolve("denylist.bin").toString();
+        VerifiedToken revoked = token("7", Instant.now(), Instant.now().plusSeconds(600));
+        VerifiedToken beforeLogoutAll = token("8", Instant.now().minusSeconds(30), Instant.now().plusSeconds(600));
+
+        AccessTokenDenylist first = new AccessTokenDenylist(file, 16, 3600_000);
+        first.revoke(revoked);
+        first.revokeAllForSubject("8");
+        first.close();
+
+        AccessTokenDenylist restarted = new AccessTokenDenylist(file, 16, 3600_000);
+        assertTrue(restarted.isRevoked(revoked));
+        assertTrue(restarted.isRevoked(beforeLogoutAll));
+        assertEquals(2, restarted.size());
+        restarted.close();
+    }
+
+    @Test
+    void fullFileCompactsAndKeepsRevokingInMemory() {
+        AccessTokenDenylist denylist = new AccessTokenDenylist(dir.resolve("small.bin").toString(), 2, 3600_000);
+        VerifiedToken last = null;
+        for (int i = 0; i < 4; i++) {
+            last = token("1", Instant.now(), Instant.now().plusSeconds(600));
+            denylist.revoke(last);
+        }
+        assertTrue(denylist.isRevoked(last));
+        assertEquals(4, denylist.size());
+        denylist.close();
+    }
+
+    private static VerifiedToken token(String subject, Instant issuedAt, Instant expiresAt) {
+        return new VerifiedToken(subject, "u@kiubit.mx", List.of("ROLE_USER"), "ACTIVE",
+                UUID.randomUUID().toString(), issuedAt, expiresAt);
+    }
+}
@@ -0,0 +1,56 @@
+package com.kubit.authservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostAwareBCryptPasswordEncoderTest {
+
+    @Test
+    void pinnedCostUpgradesWhenCostDiffersInEitherDirection() {
+        CostAwareBCryptPasswordEncoder encoder = new CostAwareBCryptPasswordEncoder(5, true);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("pw")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("pw")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("pw")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void calibratedCostNeverRehashesHigherCost() {
+        CostAwareBCryptPasswordEncoder encoder = new CostAwareBCryptPasswordEncoder(5);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("pw")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("pw")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("pw")));
+    }
+
+    @Test
+    void delegatingEncoderAcceptsLegacyHashesAndUpgradesThem() {
+        CostAwareBCryptPasswordEncoder bcrypt = new CostAwareBCryptPasswordEncoder(4);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        String legacy = new BCryptPasswordEncoder(4).encode("pw");
+
+        assertTrue(encoder.matches("pw", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+
+        String current = encoder.encode("pw");
+        assertTrue(current.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(encoder.matches("pw", current));
+        assertFalse(encoder.upgradeEncoding(current));
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        assertEquals(4, BCryptCostCalibrator.calibrate(Duration.ofNanos(1), 4, 6));
+        assertEquals(6, BCryptCostCalibrator.calibrate(Duration.ofSeconds(30), 4, 6));
+        int cost = BCryptCostCalibrator.calibrate(Duration.ofMillis(20), 4, 12);
+        assertTrue(cost >= 4 && cost <= 12);
+    }
+}
@@ -0,0 +1,127 @@
+package com.kubit.authservice.util;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.AuthUserStatus;
+import com.kubit.authservice.domain.entity.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Hs256JwtCodecTest {
+
+    private final String jwtSecret = "SuperClaveJWTParaFirmaSegura123456SuperClaveJWTParaFirmaSegura123456";
+    private SecretKey key;
+    private Hs256JwtCodec codec;
+    private AuthUser testUser;
+
+    @BeforeEach
+    void setUp() {
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        codec = new Hs256JwtCodec(key);
+        testUser = AuthUser.builder()
+                .id(42L)
+                .email("josé\"o'neil\\@kiubit.mx")
+                .status(AuthUserStatus.ACTIVE)
+                .roles(Set.of(Role.builder().name("ROLE_USER").build(), Role.builder().name("ROLE_ADMIN").build()))
+                .build();
+    }
+
+    @Test
+    void jjwtAcceptsTokensFromFastCodec() {
+        long now = System.currentTimeMillis() / 1000;
+        String token = codec.encode(testUser, "jti-1", now, now + 3600);
+
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+
+        assertEquals("42", claims.getSubject());
+        assertEquals(testUser.getEmail(), claims.get("email", String.class));
+        assertEquals("ACTIVE", claims.get("status", String.class));
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), Set.copyOf(claims.get("roles", List.class)));
+        assertEquals(now, claims.getIssuedAt().getTime() / 1000);
+        assertEquals(now + 3600, claims.getExpiration().getTime() / 1000);
+        assertEquals("jti-1", claims.getId());
+    }
+
+    @Test
+    void fastCodecAcceptsTokensFromJjwt() {
+        String token = new JwtUtil(JwtKeyRing.hmac(jwtSecret), 3600_000, 604800_000, "jjwt").generateToken(testUser);
+
+        Hs256JwtCodec.Decoded decoded = codec.decode(token);
+
+        assertTrue(decoded.supported());
+        VerifiedToken verified = decoded.token();
+        assertNotNull(verified);
+        assertEquals("42", verified.subject());
+        assertEquals(testUser.getEmail(), verified.email());
+        assertEquals("ACTIVE", verified.status());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), Set.copyOf(verified.roles()));
+        assertNotNull(verified.jti());
+        assertNotNull(verified.issuedAt());
+    }
+
+    @Test
+    void ignoresUnknownClaimsFromOtherIssuers() {
+        String token = Jwts.builder()
+                .setClaims(Map.of("email", "x@kiubit.mx", "roles", List.of("ROLE_USER"), "status", "ACTIVE",
+                        "scope", "read write", "admin", false, "jti", "abc", "aud", List.of("gateway")))
+                .setSubject("9")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+
+        VerifiedToken verified = codec.decode(token).token();
+
+        assertNotNull(verified);
+        assertEquals("9", verified.subject());
+        assertEquals(List.of("ROLE_USER"), verified.roles());
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        long now = System.currentTimeMillis() / 1000;
+        String token = codec.encode(testUser, "jti-2", now, now + 3600);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String expired = codec.encode(testUser, "jti-3", now - 7200, now - 3600);
+
+        assertSame(Hs256JwtCodec.Decoded.INVALID, codec.decode(tampered));
+        assertSame(Hs256JwtCodec.Decoded.INVALID, codec.decode(expired));
+        assertSame(Hs256JwtCodec.Decoded.INVALID,
+                new Hs256JwtCodec(Keys.hmacShaKeyFor(("otra" + jwtSecret).getBytes())).decode(token));
+    }
+
+    @Test
+    void delegatesUnknownHeadersAndPayloadShapes() {
+        String withKid = Jwts.builder().setHeaderParam("kid", "k1").setSubject("1")
+                .signWith(key, SignatureAlgorithm.HS256).compact();
+        String nestedClaim = Jwts.builder().setClaims(Map.of("address", Map.of("city", "CDMX"))).setSubject("1")
+                .signWith(key, SignatureAlgorithm.HS256).compact();
+
+        assertFalse(codec.decode(withKid).supported());
+        assertFalse(codec.decode(nestedClaim).supported());
+        // JwtUtil resuelve esos casos con jjwt
+        JwtUtil jwtUtil = new JwtUtil(jwtSecret, 3600_000, 604800_000);
+        assertEquals("1", jwtUtil.verify(nestedClaim).orElseThrow().subject());
+    }
+
+    @Test
+    void headerMatchesJjwtOutput() {
+        long now = System.currentTimeMillis() / 1000;
+        String token = codec.encode(testUser, "jti-4", now, now + 60);
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        assertEquals("{\"alg\":\"HS256\"}", header);
+    }
+}
@@ -9,6 +9,11 @@ import com.kubit.authservice.domain.entity.AuthUserStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.Mac;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -62,6 +67,15 @@ class JwtUtilTest {
         assertThrows(ExpiredJwtException.class, () -> shortExpiryUtil.isTokenExpired(token));
     }
 
+    @Test
+    void issuedAtIsNotBeforeMinimum() {
+        Instant minIssuedAt = Instant.ofEpochSecond(Instant.now().getEpochSecond() + 1);
+        JwtUtil jjwtUtil = new JwtUtil(JwtKeyRing.hmac(jwtSecret), jwtExpirationMs, refreshExpirationMs, "jjwt");
+
+        assertEquals(minIssuedAt, jwtUtil.verify(jwtUtil.generateToken(testUser, minIssuedAt)).orElseThrow().issuedAt());
+        assertEquals(minIssuedAt, jjwtUtil.verify(jjwtUtil.generateToken(testUser, minIssuedAt)).orElseThrow().issuedAt());
+    }
+
     @Test
     void shouldInvalidateModifiedToken() {
         String token = jwtUtil.generateToken(testUser);
@@ -69,6 +83,63 @@ class JwtUtilTest {
         assertFalse(jwtUtil.validateToken(invalidToken));
     }
 
+    @Test
+    void verifyReturnsAllClaimsInOnePass() {
+        String token = jwtUtil.generateToken(testUser);
+        VerifiedToken verified = jwtUtil.verify(token).orElseThrow();
+        assertEquals("1", verified.subject());
+        assertEquals("test@kiubit.mx", verified.email());
+        assertEquals("ACTIVE", verified.status());
+        assertEquals(Set.of("USER", "ADMIN"), Set.copyOf(verified.roles()));
+        assertTrue(verified.expiresAt().isAfter(Instant.now()));
+        assertNotNull(verified.jti());
+        assertNotEquals(verified.jti(), jwtUtil.verify(jwtUtil.generateToken(testUser)).orElseThrow().jti());
+        assertThrows(UnsupportedOperationException.class, () -> verified.roles().add("HACK"));
+    }
+
+    @Test
+    void verifyRejectsTamperedExpiredAndBlankTokens() throws InterruptedException {
+        String token = jwtUtil.generateToken(testUser);
+        assertTrue(jwtUtil.verify(token.substring(0, token.length() - 2) + "xx").isEmpty());
+        assertTrue(jwtUtil.verify("").isEmpty());
+        assertTrue(jwtUtil.verify(null).isEmpty());
+
+        JwtUtil shortExpiryUtil = new JwtUtil(jwtSecret, 1, refreshExpirationMs);
+        String expired = shortExpiryUtil.generateToken(testUser);
+        Thread.sleep(10);
+        assertTrue(shortExpiryUtil.verify(expired).isEmpty());
+    }
+
+    @Test
+    void fastAndJjwtCodecsRejectTheSameMalformedPayloads() throws Exception {
+        JwtUtil jjwt = new JwtUtil(JwtKeyRing.hmac(jwtSecret), jwtExpirationMs, refreshExpirationMs, "jjwt");
+        long exp = Instant.now().getEpochSecond() + 3600;
+        String valid = "{\"sub\":\"1\",\"exp\":" + exp + "}";
+        assertTrue(jwtUtil.verify(signed(valid)).isPresent());
+        assertTrue(jjwt.verify(signed(valid)).isPresent());
+
+        // Firma válida, payload con contenido después del objeto o sin cerrar
+        for (String payload : new String[] { valid + "x", valid + " ]", valid + "\"", valid.substring(0, valid.length() - 1) }) {
+            String token = signed(payload);
+            assertTrue(jjwt.verify(token).isEmpty(), "jjwt accepted " + payload);
+            assertTrue(jwtUtil.verify(token).isEmpty(), "fast codec accepted " + payload);
+        }
+        // jjwt lee el primer objeto si el payload termina en '}': el codec rápido no lo acepta y se lo deja a jjwt
+        String trailingObject = signed(valid + "{}");
+        assertFalse(new Hs256JwtCodec(JwtKeyRing.hmac(jwtSecret).getHmacKey()).decode(trailingObject).supported());
+        assertEquals(jjwt.verify(trailingObject).isPresent(), jwtUtil.verify(trailingObject).isPresent());
+    }
+
+    // JWS HS256 sobre un payload arbitrario, firmado con la misma llave que jwtUtil
+    private String signed(String payloadJson) throws Exception {
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = b64.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + b64.encodeToString(payloadJson.getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(JwtKeyRing.hmac(jwtSecret).getHmacKey());
+        return signingInput + "." + b64.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
     @Test
     void shouldGenerateSecureUniqueRefreshToken() {
         String one = jwtUtil.generateRefreshToken(testUser);
@@ -76,8 +147,9 @@ class JwtUtilTest {
         assertNotNull(one);
         assertNotNull(two);
         assertNotEquals(one, two);
-        assertTrue(one.length() >= 80); // Debe ser largo por entropía/base64
-        assertTrue(two.length() >= 80);
+        // Selector + verificador de 256 bits
+        assertTrue(SplitRefreshToken.parse(one).isPresent());
+        assertEquals(43, one.substring(one.indexOf('.') + 1).length());
     }
 
     @Test
@@ -0,0 +1,96 @@
+package com.kubit.authservice.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffloadingPasswordEncoderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OffloadingPasswordEncoder encoder;
+    private ExecutorService callers;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.destroy();
+        }
+        if (callers != null) {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void hashesOnDedicatedPool() {
+        encoder = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, 5000, registry);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertEquals(3, registry.get("auth.password.hash").timer().count());
+        assertEquals(3, registry.get("auth.password.wait").timer().count());
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new OffloadingPasswordEncoder(blockingEncoder(started, release), 1, 1, 5000, registry);
+        callers = Executors.newFixedThreadPool(2);
+
+        callers.submit(() -> encoder.encode("busy"));      // ocupa el único hilo
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("queued"));    // ocupa la única posición de la cola
+        waitForQueueDepth(1);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("rejected"));
+        assertEquals(1.0, registry.get("auth.password.rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void timesOutSlowOperations() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new OffloadingPasswordEncoder(blockingEncoder(new CountDownLatch(1), release), 1, 1, 50, registry);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("slow"));
+        release.countDown();
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        for (int i = 0; i < 500 && encoder.queueDepth() < depth; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, encoder.queueDepth());
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+    }
+}
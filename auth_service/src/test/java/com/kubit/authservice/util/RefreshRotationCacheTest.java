@@ -0,0 +1,70 @@
+package com.kubit.authservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.kubit.authservice.domain.entity.UserLoginResponse;
+
+class RefreshRotationCacheTest {
+
+    private final UserLoginResponse issued = new UserLoginResponse(null, "jwt", "refresh");
+
+    @Test
+    void awaitReturnsEmptyWithoutRotation() {
+        assertTrue(new RefreshRotationCache(10000, 50).await(1L).isEmpty());
+    }
+
+    @Test
+    void awaitWaitsForWinnerToComplete() throws Exception {
+        RefreshRotationCache cache = new RefreshRotationCache(10000, 5000);
+        CompletableFuture<UserLoginResponse> rotation = cache.begin(1L);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            executor.schedule(() -> cache.complete(1L, rotation, issued), 50, TimeUnit.MILLISECONDS);
+            assertSame(issued, cache.await(1L).orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void publishesOnlyAfterCommit() {
+        RefreshRotationCache cache = new RefreshRotationCache(10000, 50);
+        CompletableFuture<UserLoginResponse> rotation = cache.begin(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.complete(1L, rotation, issued);
+            // Sin commit todavía: el perdedor no ve el par
+            assertTrue(cache.await(1L).isEmpty());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertSame(issued, cache.await(1L).orElseThrow());
+    }
+
+    @Test
+    void rollbackDropsRotation() {
+        RefreshRotationCache cache = new RefreshRotationCache(10000, 50);
+        CompletableFuture<UserLoginResponse> rotation = cache.begin(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.complete(1L, rotation, issued);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(cache.await(1L).isEmpty());
+    }
+}
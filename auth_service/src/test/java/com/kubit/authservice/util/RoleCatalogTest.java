@@ -0,0 +1,65 @@
+package com.kubit.authservice.util;
+
+import com.kubit.authservice.domain.entity.Role;
+import com.kubit.authservice.domain.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+class RoleCatalogTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void servesRolesFromMemoryAfterFirstLoad() {
+        RoleRepository repository = mock(RoleRepository.class);
+        when(repository.findAll()).thenReturn(List.of(Role.builder().id(1L).name("ROLE_USER").build()));
+        RoleCatalog catalog = new RoleCatalog(repository);
+
+        RoleRef first = catalog.findByName("ROLE_USER").orElseThrow();
+        RoleRef second = catalog.findByName("ROLE_USER").orElseThrow();
+
+        assertSame(first, second);
+        assertSame(first, catalog.findById(1L).orElseThrow());
+        verify(repository, times(1)).findAll();
+        verify(repository, never()).findByName(anyString());
+    }
+
+    @Test
+    void reloadsWhenRolesChange() {
+        roleRepository.saveAndFlush(Role.builder().name("ROLE_USER").build());
+        RoleCatalog catalog = new RoleCatalog(roleRepository);
+        assertTrue(catalog.findByName("ROLE_USER").isPresent());
+        assertTrue(catalog.findByName("ROLE_ADMIN").isEmpty());
+
+        Role admin = roleRepository.saveAndFlush(Role.builder().name("ROLE_ADMIN").build());
+
+        assertEquals(2, catalog.size());
+        assertEquals(admin.getId(), catalog.findByName("ROLE_ADMIN").orElseThrow().id());
+
+        roleRepository.delete(admin);
+        roleRepository.flush();
+        assertTrue(catalog.findByName("ROLE_ADMIN").isEmpty());
+    }
+
+    @Test
+    void fallsBackToRepositoryOnMiss() {
+        RoleRepository repository = mock(RoleRepository.class);
+        Role instructor = Role.builder().id(3L).name("ROLE_INSTRUCTOR").build();
+        when(repository.findAll()).thenReturn(List.of()).thenReturn(List.of(instructor));
+        when(repository.findByName("ROLE_INSTRUCTOR")).thenReturn(Optional.of(instructor));
+        RoleCatalog catalog = new RoleCatalog(repository);
+
+        assertEquals(3L, catalog.findByName("ROLE_INSTRUCTOR").orElseThrow().id());
+        assertEquals(1, catalog.size());
+    }
+}
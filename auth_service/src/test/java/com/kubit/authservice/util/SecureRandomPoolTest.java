@@ -0,0 +1,45 @@
+package com.kubit.authservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecureRandomPoolTest {
+
+    @Test
+    void roundsStripesUpToPowerOfTwo() {
+        assertEquals(1, new SecureRandomPool(1).size());
+        assertEquals(4, new SecureRandomPool(3).size());
+        assertEquals(8, new SecureRandomPool(8).size());
+        assertTrue(new SecureRandomPool(0).size() >= 2);
+    }
+
+    @Test
+    void randomUuidIsVersion4() {
+        SecureRandomPool pool = new SecureRandomPool(2);
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = pool.randomUUID();
+            assertEquals(4, uuid.version());
+            assertEquals(2, uuid.variant());
+            assertTrue(seen.add(uuid));
+        }
+        assertEquals(36, UUID.fromString(pool.randomUUID().toString()).toString().length());
+    }
+
+    @Test
+    void keepsServingBytesAfterReseed() {
+        SecureRandomPool pool = new SecureRandomPool(2);
+        byte[] before = new byte[32];
+        byte[] after = new byte[32];
+        pool.nextBytes(before);
+        pool.reseed();
+        pool.nextBytes(after);
+        assertFalse(Arrays.equals(before, after));
+    }
+}
@@ -0,0 +1,38 @@
+package com.kubit.authservice.util;
+
+import com.kubit.authservice.util.AuthMetrics.Phase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingRecorderTest {
+
+    @Test
+    void accumulatesPhasesInRequestOrder() {
+        ServerTimingRecorder recorder = new ServerTimingRecorder(true);
+        recorder.start();
+        recorder.record(Phase.MINT, 200_000);
+        recorder.record(Phase.USER_LOOKUP, 1_000_000);
+        recorder.record(Phase.MINT, 300_000);
+
+        assertEquals("db-user;dur=1.0, mint;dur=0.5", recorder.header());
+
+        recorder.clear();
+        assertNull(recorder.header());
+    }
+
+    @Test
+    void ignoresRecordsOutsideARequest() {
+        ServerTimingRecorder recorder = new ServerTimingRecorder(true);
+        recorder.record(Phase.PASSWORD, 1_000_000);
+        assertNull(recorder.header());
+    }
+
+    @Test
+    void disabledRecorderNeverReports() {
+        ServerTimingRecorder recorder = ServerTimingRecorder.disabled();
+        recorder.start();
+        recorder.record(Phase.PASSWORD, 1_000_000);
+        assertNull(recorder.header());
+    }
+}
@@ -0,0 +1,88 @@
+package com.kubit.authservice.util;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.AuthUserStatus;
+import com.kubit.authservice.domain.entity.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private final String jwtSecret = "SuperClaveJWTParaFirmaSegura123456SuperClaveJWTParaFirmaSegura123456";
+    private JwtUtil jwtUtil;
+    private AccessTokenDenylist denylist;
+    private VerifiedTokenCache cache;
+    private AuthUser testUser;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil(jwtSecret, 3600_000, 604800_000));
+        denylist = AccessTokenDenylist.inMemory(3600_000);
+        cache = new VerifiedTokenCache(jwtUtil, denylist, 100);
+        testUser = AuthUser.builder()
+                .id(7L)
+                .email("cache@kiubit.mx")
+                .status(AuthUserStatus.ACTIVE)
+                .roles(Set.of(Role.builder().name("ROLE_USER").build()))
+                .build();
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnlyOnce() {
+        String token = jwtUtil.generateToken(testUser);
+
+        VerifiedToken first = cache.verify(token).orElseThrow();
+        VerifiedToken second = cache.verify(token).orElseThrow();
+
+        assertSame(first, second);
+        verify(jwtUtil, times(1)).verify(token);
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void forgedTokensAreNeverCached() {
+        String token = jwtUtil.generateToken(testUser);
+        String forged = token.substring(0, token.length() - 2) + "xx";
+
+        assertTrue(cache.verify(forged).isEmpty());
+        assertTrue(cache.verify(forged).isEmpty());
+
+        assertEquals(0, cache.estimatedSize());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    void entriesDoNotOutliveTokenExpiry() throws InterruptedException {
+        JwtUtil shortLived = new JwtUtil(jwtSecret, 2000, 604800_000);
+        VerifiedTokenCache shortCache = new VerifiedTokenCache(shortLived, denylist, 100);
+        String token = shortLived.generateToken(testUser);
+
+        assertTrue(shortCache.verify(token).isPresent());
+        Thread.sleep(2100);
+
+        assertTrue(shortCache.verify(token).isEmpty());
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenWhenCached() {
+        String token = jwtUtil.generateToken(testUser);
+        VerifiedToken verified = cache.verify(token).orElseThrow();
+
+        denylist.revoke(verified);
+
+        assertTrue(cache.verify(token).isEmpty());
+    }
+
+    @Test
+    void blankTokenShortCircuits() {
+        assertTrue(cache.verify(" ").isEmpty());
+        assertTrue(cache.verify(null).isEmpty());
+        verify(jwtUtil, never()).verify(any());
+    }
+}
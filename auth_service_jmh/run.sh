@@ -0,0 +1,33 @@
+#!/usr/bin/env sh
+# Corre los benchmarks JMH con 1 y 4 hilos y el profiler de GC (bytes por operación), deja el JSON en results/
+# y lo compara contra baseline/ si existe.
+#
+#   ./run.sh                    todos los benchmarks
+#   ./run.sh JwtBenchmark       solo los que matcheen la regex
+#   ./run.sh --save-baseline    además copia results/ a baseline/
+#   THRESHOLD=5 ./run.sh        umbral de regresión en % (default 10)
+set -e
+cd "$(dirname "$0")"
+
+SAVE_BASELINE=false
+if [ "$1" = "--save-baseline" ]; then
+    SAVE_BASELINE=true
+    shift
+fi
+PATTERN="${1:-.}"
+
+mvn -B -q -f ../auth_service/pom.xml install -DskipTests
+mvn -B -q package
+
+mkdir -p results
+for THREADS in 1 4; do
+    java -jar target/benchmarks.jar "$PATTERN" -t "$THREADS" -prof gc -rf json -rff "results/jmh-t$THREADS.json"
+done
+
+if [ "$SAVE_BASELINE" = true ]; then
+    mkdir -p baseline
+    cp results/*.json baseline/
+    echo "Baseline actualizado en baseline/"
+elif [ -d baseline ]; then
+    java -cp target/benchmarks.jar com.kubit.authservice.jmh.BaselineComparator baseline results "${THRESHOLD:-10}"
+fi
@@ -0,0 +1,125 @@
+package com.kubit.authservice.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Compara resultados JMH ({@code -rf json}) contra un baseline y marca regresiones:
+ * <ul>
+ * <li>métrica principal: throughput que baja, o tiempo por operación que sube, más de {@code umbral}%;</li>
+ * <li>{@code gc.alloc.rate.norm} (bytes por operación, de {@code -prof gc}) que sube más de {@code umbral}% y
+ * de 16 bytes.</li>
+ * </ul>
+ * Uso: {@code BaselineComparator <baseline> <actual> [umbral%]}, con dos archivos o dos directorios (se comparan
+ * los archivos de igual nombre). Sale con código 1 si hay alguna regresión.
+ */
+public final class BaselineComparator {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+    private static final double ALLOC_NOISE_BYTES = 16;
+
+    private record Score(double value, String unit, boolean higherIsBetter) { }
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BaselineComparator <baseline> <actual> [umbral%]");
+            System.exit(2);
+        }
+        double threshold = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100;
+        int regressions = 0;
+        for (Map.Entry<Path, Path> pair : pairs(Path.of(args[0]), Path.of(args[1])).entrySet()) {
+            System.out.println("== " + pair.getValue().getFileName());
+            regressions += compare(read(pair.getKey()), read(pair.getValue()), threshold);
+        }
+        System.out.println(regressions == 0 ? "Sin regresiones" : regressions + " regresiones");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    static int compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("  NEW  %-90s %12.3f %s%n", entry.getKey(), now.value(), now.unit());
+                continue;
+            }
+            double change = before.value() == 0 ? 0 : (now.value() - before.value()) / before.value();
+            double worse = now.higherIsBetter() ? -change : change;
+            boolean regression = worse > threshold
+                && (!entry.getKey().endsWith(ALLOC_METRIC) || now.value() - before.value() > ALLOC_NOISE_BYTES);
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("  %-4s %-90s %12.3f -> %12.3f %s (%+.1f%%)%n", regression ? "FAIL" : "ok",
+                entry.getKey(), before.value(), now.value(), now.unit(), change * 100);
+        }
+        return regressions;
+    }
+
+    /**
+     * Clave: benchmark + parámetros + hilos, para no mezclar variantes.
+     */
+    static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        JsonNode results = JsonMapper.builder().build().readTree(file.toFile());
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asString());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                for (Map.Entry<String, JsonNode> param : params.properties()) {
+                    key.append(':').append(param.getKey()).append('=').append(param.getValue().asString());
+                }
+            }
+            key.append(":t=").append(result.get("threads").asInt());
+            boolean higherIsBetter = "thrpt".equals(result.get("mode").asString());
+            JsonNode primary = result.get("primaryMetric");
+            scores.put(key.toString(),
+                new Score(primary.get("score").asDouble(), primary.get("scoreUnit").asString(), higherIsBetter));
+            JsonNode secondary = result.get("secondaryMetrics");
+            if (secondary != null) {
+                for (Map.Entry<String, JsonNode> metric : secondary.properties()) {
+                    // JMH viejos anteponen "·" al nombre de la métrica
+                    if (metric.getKey().replace("·", "").equals(ALLOC_METRIC)) {
+                        scores.put(key + ":" + ALLOC_METRIC, new Score(metric.getValue().get("score").asDouble(),
+                            metric.getValue().get("scoreUnit").asString(), false));
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static Map<Path, Path> pairs(Path baseline, Path current) throws IOException {
+        Map<Path, Path> pairs = new LinkedHashMap<>();
+        if (!Files.isDirectory(current)) {
+            pairs.put(baseline, current);
+            return pairs;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(current)) {
+            list.filter(f -> f.toString().endsWith(".json")).sorted().forEach(files::add);
+        }
+        for (Path file : files) {
+            Path reference = baseline.resolve(file.getFileName());
+            if (Files.exists(reference)) {
+                pairs.put(reference, file);
+            } else {
+                System.out.println("Sin baseline para " + file.getFileName());
+            }
+        }
+        return pairs;
+    }
+}
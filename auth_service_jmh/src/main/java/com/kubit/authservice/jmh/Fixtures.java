@@ -0,0 +1,29 @@
+package com.kubit.authservice.jmh;
+
+import java.util.Set;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.domain.entity.AuthUserStatus;
+import com.kubit.authservice.domain.entity.Role;
+
+/**
+ * Datos comunes a los benchmarks: mismos claims y expiraciones que en producción.
+ */
+final class Fixtures {
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+    static final long ACCESS_EXPIRATION_MS = 3_600_000;
+    static final long REFRESH_EXPIRATION_MS = 86_400_000;
+
+    private Fixtures() {
+    }
+
+    static AuthUser user() {
+        return AuthUser.builder()
+            .id(42L)
+            .email("bench@example.com")
+            .passwordHash("unused")
+            .status(AuthUserStatus.ACTIVE)
+            .roles(Set.of(Role.builder().id(1L).name("ROLE_USER").build()))
+            .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.kubit.authservice.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.kubit.authservice.config.JwtAuthenticationFilter;
+import com.kubit.authservice.util.AccessTokenDenylist;
+import com.kubit.authservice.util.JwtKeyRing;
+import com.kubit.authservice.util.JwtUtil;
+import com.kubit.authservice.util.VerifiedTokenCache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Filtro completo por request: cookie, verificación (o acierto en {@link VerifiedTokenCache}) y armado de la
+ * autenticación. {@code cacheEntries=0} fuerza la verificación en cada request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({ "10000", "0" })
+    public long cacheEntries;
+
+    private JwtAuthenticationFilter filter;
+    private Cookie accessCookie;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(JwtKeyRing.hmac(Fixtures.SECRET), Fixtures.ACCESS_EXPIRATION_MS,
+            Fixtures.REFRESH_EXPIRATION_MS);
+        AccessTokenDenylist denylist = AccessTokenDenylist.inMemory(Fixtures.ACCESS_EXPIRATION_MS);
+        filter = new JwtAuthenticationFilter(new VerifiedTokenCache(jwtUtil, denylist, cacheEntries));
+        accessCookie = new Cookie("accessToken", jwtUtil.generateToken(Fixtures.user()));
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws ServletException, IOException {
+        // Request nuevo cada vez: OncePerRequestFilter marca el request ya filtrado
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/me");
+        request.setCookies(accessCookie);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.kubit.authservice.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kubit.authservice.domain.entity.AuthUser;
+import com.kubit.authservice.util.JwtKeyRing;
+import com.kubit.authservice.util.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Emisión y verificación de access tokens HS256 con los dos codecs ({@code jwt.codec}), y refresh tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({ "fast", "jjwt" })
+    public String codec;
+
+    private JwtUtil jwtUtil;
+    private AuthUser user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(JwtKeyRing.hmac(Fixtures.SECRET), Fixtures.ACCESS_EXPIRATION_MS,
+            Fixtures.REFRESH_EXPIRATION_MS, codec);
+        user = Fixtures.user();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    /**
+     * Siempre por jjwt (parser con resolución de llave), independiente del codec.
+     */
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtUtil.generateRefreshToken(user);
+    }
+}
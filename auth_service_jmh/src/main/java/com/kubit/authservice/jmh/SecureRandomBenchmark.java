@@ -0,0 +1,58 @@
+package com.kubit.authservice.jmh;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kubit.authservice.util.SecureRandomPool;
+import com.kubit.authservice.util.SplitRefreshToken;
+
+/**
+ * Contención de la fuente aleatoria con varios hilos. {@code source=shared} es lo anterior: un único DRBG para
+ * refresh tokens (como tenía {@code JwtUtil}) y {@link UUID#randomUUID()} para el deviceId; {@code source=pool} es
+ * {@link SecureRandomPool}. Para ver cómo escala, correr con {@code -t 1}, {@code -t 2}, ... hasta el número de
+ * núcleos y comparar ops/ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecureRandomBenchmark {
+
+    @Param({ "shared", "pool" })
+    public String source;
+
+    private SecureRandom shared;
+    private SecureRandomPool pool;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        shared = SecureRandom.getInstance("DRBG");
+        pool = new SecureRandomPool(0);
+    }
+
+    @Benchmark
+    public String refreshToken() {
+        return SplitRefreshToken.generate("pool".equals(source) ? pool.current() : shared);
+    }
+
+    @Benchmark
+    public UUID deviceId() {
+        return "pool".equals(source) ? pool.randomUUID() : UUID.randomUUID();
+    }
+}